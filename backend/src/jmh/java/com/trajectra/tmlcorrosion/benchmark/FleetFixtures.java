@@ -0,0 +1,88 @@
+package com.trajectra.tmlcorrosion.benchmark;
+
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.entity.Classification;
+import com.trajectra.tmlcorrosion.entity.Measurement;
+import com.trajectra.tmlcorrosion.entity.Tml;
+import com.trajectra.tmlcorrosion.service.LatestMeasurementStore;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Deterministic synthetic fleets for the benchmarks. Circuits hold {@link #TMLS_PER_CIRCUIT}
+ * TMLs each and corrosion rates are spread over 0-80 mpy so every classification range is hit.
+ */
+public final class FleetFixtures {
+    
+    public static final int TMLS_PER_CIRCUIT = 20;
+    
+    private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END_DATE = LocalDate.of(2025, 1, 1);
+    
+    private FleetFixtures() {
+    }
+    
+    public static List<Classification> corrosionRateClassifications() {
+        return List.of(
+            new Classification(1L, "corrosion_rate", "< 10 mpy", 0.0, 10.0),
+            new Classification(2L, "corrosion_rate", "10-20 mpy", 10.0, 20.0),
+            new Classification(3L, "corrosion_rate", "20-30 mpy", 20.0, 30.0),
+            new Classification(4L, "corrosion_rate", "30-50 mpy", 30.0, 50.0),
+            new Classification(5L, "corrosion_rate", "> 50 mpy", 50.0, null)
+        );
+    }
+    
+    public static double[] corrosionRates(int count) {
+        Random random = new Random(42);
+        double[] rates = new double[count];
+        for (int i = 0; i < count; i++) {
+            rates[i] = random.nextDouble() * 80.0;
+        }
+        return rates;
+    }
+    
+    public static List<LatestMeasurementStore.LatestReading> latestReadings(int tmlCount) {
+        double[] rates = corrosionRates(tmlCount);
+        List<LatestMeasurementStore.LatestReading> readings = new ArrayList<>(tmlCount);
+        for (int i = 0; i < tmlCount; i++) {
+            readings.add(new LatestMeasurementStore.LatestReading(
+                i + 1, circuitId(i), tmlId(i), i + 1, END_DATE, 8.0, 120.0, rates[i]));
+        }
+        return readings;
+    }
+    
+    /** Rows shaped like the native result of {@code findTemporalTracking}. */
+    public static List<TemporalTrackingRow> temporalTrackingRows(int tmlCount) {
+        double[] rates = corrosionRates(tmlCount);
+        List<TemporalTrackingRow> rows = new ArrayList<>(tmlCount);
+        for (int i = 0; i < tmlCount; i++) {
+            rows.add(new TemporalTrackingRow((long) (i + 1), circuitId(i), tmlId(i), rates[i] * 0.8, rates[i]));
+        }
+        return rows;
+    }
+    
+    public static List<Tml> tmls(int tmlCount) {
+        List<Tml> tmls = new ArrayList<>(tmlCount);
+        for (int i = 0; i < tmlCount; i++) {
+            tmls.add(new Tml((long) (i + 1), circuitId(i), tmlId(i), null));
+        }
+        return tmls;
+    }
+    
+    public static List<Measurement> measurements(List<Tml> tmls) {
+        double[] rates = corrosionRates(tmls.size());
+        List<Measurement> measurements = new ArrayList<>(tmls.size());
+        for (int i = 0; i < tmls.size(); i++) {
+            measurements.add(new Measurement((long) (i + 1), tmls.get(i), START_DATE.plusDays(i % 365), 8.0 - rates[i] / 100.0, 120.0, rates[i]));
+        }
+        return measurements;
+    }
+    
+    private static String circuitId(int index) {
+        return "C-" + (index / TMLS_PER_CIRCUIT);
+    }
+    
+    private static String tmlId(int index) {
+        return String.valueOf(100 + index % TMLS_PER_CIRCUIT);
+    }
+}
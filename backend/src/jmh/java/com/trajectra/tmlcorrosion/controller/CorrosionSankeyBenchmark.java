@@ -0,0 +1,35 @@
+package com.trajectra.tmlcorrosion.controller;
+
+import com.trajectra.tmlcorrosion.benchmark.FleetFixtures;
+import com.trajectra.tmlcorrosion.service.ClassificationIndex;
+import com.trajectra.tmlcorrosion.service.LatestMeasurementStore;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorrosionSankeyBenchmark {
+    
+    @Param({"1000", "50000", "500000"})
+    private int tmlCount;
+    
+    private List<LatestMeasurementStore.LatestReading> latestReadings;
+    private ClassificationIndex.CompiledRanges ranges;
+    
+    @Setup
+    public void setUp() {
+        latestReadings = FleetFixtures.latestReadings(tmlCount);
+        ranges = ClassificationIndex.CompiledRanges.compile(FleetFixtures.corrosionRateClassifications());
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> sankeyLinksFromLatestReadings() {
+        return CorrosionDataController.toSankeyLinks(latestReadings, ranges);
+    }
+}
@@ -0,0 +1,46 @@
+package com.trajectra.tmlcorrosion.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.trajectra.tmlcorrosion.benchmark.FleetFixtures;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntitySerializationBenchmark {
+    
+    @Param({"1000", "50000", "500000"})
+    private int tmlCount;
+    
+    private ObjectMapper objectMapper;
+    private List<Tml> tmls;
+    private List<Measurement> measurements;
+    
+    @Setup
+    public void setUp() {
+        // Same date handling as the Spring Boot configured mapper
+        objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        tmls = FleetFixtures.tmls(tmlCount);
+        measurements = FleetFixtures.measurements(tmls);
+    }
+    
+    @Benchmark
+    public byte[] serializeTmls() throws Exception {
+        return objectMapper.writeValueAsBytes(tmls);
+    }
+    
+    @Benchmark
+    public byte[] serializeMeasurements() throws Exception {
+        return objectMapper.writeValueAsBytes(measurements);
+    }
+}
@@ -0,0 +1,61 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.benchmark.FleetFixtures;
+import com.trajectra.tmlcorrosion.entity.Classification;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassificationBucketingBenchmark {
+    
+    @Param({"1000", "50000", "500000"})
+    private int tmlCount;
+    
+    private double[] rates;
+    private List<Classification> classifications;
+    private ClassificationIndex.CompiledRanges ranges;
+    
+    @Setup
+    public void setUp() {
+        rates = FleetFixtures.corrosionRates(tmlCount);
+        classifications = FleetFixtures.corrosionRateClassifications();
+        ranges = ClassificationIndex.CompiledRanges.compile(classifications);
+    }
+    
+    @Benchmark
+    public void compiledIndex(Blackhole blackhole) {
+        for (double rate : rates) {
+            blackhole.consume(ranges.indexOf(rate));
+        }
+    }
+    
+    // The per-row linear check the Sankey endpoint used before the index existed
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (double rate : rates) {
+            String label = null;
+            for (Classification classification : classifications) {
+                boolean inRange = false;
+                if (classification.getMinValue() != null && classification.getMaxValue() != null) {
+                    inRange = rate >= classification.getMinValue() && rate < classification.getMaxValue();
+                } else if (classification.getMinValue() != null && classification.getMaxValue() == null) {
+                    inRange = rate >= classification.getMinValue();
+                } else if (classification.getMinValue() == null && classification.getMaxValue() != null) {
+                    inRange = rate < classification.getMaxValue();
+                }
+                if (inRange) {
+                    label = classification.getRangeLabel();
+                    break;
+                }
+            }
+            blackhole.consume(label);
+        }
+    }
+}
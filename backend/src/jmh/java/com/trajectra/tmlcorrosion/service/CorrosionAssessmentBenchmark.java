@@ -0,0 +1,49 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorrosionAssessmentBenchmark {
+    
+    private static final int READINGS_PER_TML = 10;
+    
+    // 100k TMLs x 10 readings is the million-reading fleet recompute
+    @Param({"10000", "100000"})
+    private int tmlCount;
+    
+    private CorrosionAssessmentService.Series series;
+    private ForkJoinPool pool;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        series = new CorrosionAssessmentService.Series();
+        for (int tml = 0; tml < tmlCount; tml++) {
+            double thickness = 10 + random.nextDouble() * 10;
+            double lossPerYear = random.nextDouble() * 0.5;
+            for (int reading = 0; reading < READINGS_PER_TML; reading++) {
+                series.add(tml + 1, 18000 + reading * 365, thickness - reading * lossPerYear + random.nextGaussian() * 0.05);
+            }
+        }
+        series.finish();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+    
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+    
+    @Benchmark
+    public CorrosionAssessmentService.Results assessFleet() {
+        return CorrosionAssessmentService.assessAll(pool, series, 5.0, 39.37);
+    }
+}
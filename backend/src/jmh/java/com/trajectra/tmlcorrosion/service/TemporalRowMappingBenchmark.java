@@ -0,0 +1,33 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.benchmark.FleetFixtures;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemporalRowMappingBenchmark {
+    
+    @Param({"1000", "50000", "500000"})
+    private int tmlCount;
+    
+    private List<TemporalTrackingRow> rows;
+    private ClassificationIndex.CompiledRanges ranges;
+    
+    @Setup
+    public void setUp() {
+        rows = FleetFixtures.temporalTrackingRows(tmlCount);
+        ranges = ClassificationIndex.CompiledRanges.compile(FleetFixtures.corrosionRateClassifications());
+    }
+    
+    @Benchmark
+    public List<TemporalTrackingRow> temporalTrackingRows() {
+        return TemporalTrackingService.withEndCategory(rows, ranges);
+    }
+}
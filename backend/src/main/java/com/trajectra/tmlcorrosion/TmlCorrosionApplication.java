@@ -2,8 +2,10 @@ package com.trajectra.tmlcorrosion;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TmlCorrosionApplication {
     public static void main(String[] args) {
         SpringApplication.run(TmlCorrosionApplication.class, args);
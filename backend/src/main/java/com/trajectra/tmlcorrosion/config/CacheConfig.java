@@ -0,0 +1,41 @@
+package com.trajectra.tmlcorrosion.config;
+
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.MeasurementsChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Caches for reference-data queries that the dashboard re-runs on every load. Entity lookups for
+ * Tml and Classification are cached separately in the Hibernate second-level cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String MEASUREMENT_DATES = "measurementDates";
+    public static final String TMLS_BY_CIRCUIT = "tmlsByCircuit";
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @EventListener
+    @Order(DataVersion.READ_MODEL_ORDER)
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        if (!event.measurementDates().isEmpty()) {
+            clear(MEASUREMENT_DATES);
+        }
+    }
+    
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.trajectra.tmlcorrosion.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections checked out at once. Each connection holds a permit until it
+ * is closed; callers beyond the cap park on a fair semaphore instead of piling into the pool's
+ * own wait queue, which keeps an unbounded number of virtual threads from all contending for a
+ * handful of connections. Gives up after {@code acquireTimeoutMillis} the way Hikari does.
+ * <p>
+ * Meant to front a single pool and be sized to it; metrics are tagged with {@code pool}.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+    
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final Timer waitTimer;
+    private final Counter timeouts;
+    
+    public ConnectionLimitingDataSource(DataSource targetDataSource, String pool, int maxConnections,
+                                        long acquireTimeoutMillis, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.waitTimer = Timer.builder("tml.datasource.limiter.wait")
+            .tag("pool", pool)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.timeouts = meterRegistry.counter("tml.datasource.limiter.timeouts", "pool", pool);
+        Gauge.builder("tml.datasource.limiter.available", permits, Semaphore::availablePermits)
+            .tag("pool", pool)
+            .register(meterRegistry);
+        Gauge.builder("tml.datasource.limiter.waiting", permits, Semaphore::getQueueLength)
+            .tag("pool", pool)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                "No database connection available within " + acquireTimeoutMillis + "ms");
+        }
+    }
+    
+    private Connection releasingOnClose(Connection connection) {
+        // Closing twice must not hand back a second permit
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionLimitingDataSource.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                    try {
+                        connection.close();
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+    }
+}
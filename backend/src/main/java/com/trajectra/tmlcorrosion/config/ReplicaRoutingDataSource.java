@@ -0,0 +1,123 @@
+package com.trajectra.tmlcorrosion.config;
+
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.MeasurementsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary. The
+ * replica is bypassed while its replay lag is above {@code maxLagMillis} or cannot be
+ * measured, and for {@code maxLagMillis} after any write, so read models and cached responses
+ * rebuilt right after a write still see it.
+ * <p>
+ * Has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the read-only flag is only set once the transaction has begun, after the transaction
+ * manager would otherwise have fetched its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    // Seconds the replica is behind; zero when it has replayed everything it received
+    private static final String LAG_SQL = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() THEN 0
+            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+        END
+        """;
+    
+    private enum Target { PRIMARY, REPLICA }
+    
+    private final JdbcTemplate replicaTemplate;
+    private final DataVersion dataVersion;
+    private final long maxLagMillis;
+    private final Counter primaryRouted;
+    private final Counter replicaRouted;
+    
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN;
+    
+    private final AtomicLong lastSeenVersion;
+    private volatile long lastWriteNanos;
+    
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, DataVersion dataVersion,
+                                    MeterRegistry meterRegistry, long maxLagMillis) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.replicaTemplate = new JdbcTemplate(replica);
+        this.replicaTemplate.setQueryTimeout(5);
+        this.dataVersion = dataVersion;
+        this.maxLagMillis = maxLagMillis;
+        this.lastSeenVersion = new AtomicLong(dataVersion.current());
+        this.lastWriteNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        
+        this.primaryRouted = meterRegistry.counter("tml.datasource.routed", "target", "primary");
+        this.replicaRouted = meterRegistry.counter("tml.datasource.routed", "target", "replica");
+        Gauge.builder("tml.datasource.replica.lag", this, routing -> routing.lagSeconds)
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("tml.datasource.replica.usable", this, routing -> routing.replicaUsable ? 1 : 0)
+            .register(meterRegistry);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean toReplica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            && replicaUsable
+            && !withinWriteFence();
+        (toReplica ? replicaRouted : primaryRouted).increment();
+        return toReplica ? Target.REPLICA : Target.PRIMARY;
+    }
+    
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        // Before the read models refresh, so their reloads go to the primary
+        lastWriteNanos = System.nanoTime();
+    }
+    
+    @Scheduled(fixedDelayString = "${tml.datasource.replica.lag-check-ms:2000}")
+    public void checkReplicaLag() {
+        try {
+            Double lag = replicaTemplate.queryForObject(LAG_SQL, Double.class);
+            boolean usable = lag != null && lag * 1000 <= maxLagMillis;
+            if (usable != replicaUsable) {
+                log.info("Replica {} for reads (lag {} s)", usable ? "enabled" : "disabled", lag);
+            }
+            lagSeconds = lag == null ? Double.NaN : lag;
+            replicaUsable = usable;
+        } catch (DataAccessException e) {
+            if (replicaUsable) {
+                log.warn("Replica lag check failed, routing reads to the primary: {}", e.getMessage());
+            }
+            lagSeconds = Double.NaN;
+            replicaUsable = false;
+        }
+    }
+    
+    private boolean withinWriteFence() {
+        // Classification and TML writes only move the data version; the fence starts when a read first notices it
+        long version = dataVersion.current();
+        if (lastSeenVersion.getAndSet(version) != version) {
+            lastWriteNanos = System.nanoTime();
+        }
+        return System.nanoTime() - lastWriteNanos < TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+    }
+}
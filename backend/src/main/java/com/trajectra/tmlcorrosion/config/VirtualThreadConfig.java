@@ -0,0 +1,55 @@
+package com.trajectra.tmlcorrosion.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import javax.sql.DataSource;
+
+/**
+ * With {@code spring.threads.virtual.enabled} (Java 21+), Tomcat and the application task
+ * executor run every request on its own virtual thread, so request concurrency is no longer
+ * what bounds database load. The connection limiter takes over that job in front of the pool.
+ * <p>
+ * With the read replica enabled, {@code dataSource} routes to two pools of different sizes, so
+ * each pool gets its own limiter instead of one shared cap in front of the router.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "tml.datasource.limiter.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment,
+                                                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                boolean replicaEnabled = environment.getProperty("tml.datasource.replica.enabled", Boolean.class, false);
+                int primaryPoolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                if (replicaEnabled ? "primaryDataSource".equals(beanName) : "dataSource".equals(beanName)) {
+                    return limit(dataSource, "primary",
+                        environment.getProperty("tml.datasource.limiter.max-connections", Integer.class, primaryPoolSize));
+                }
+                if (replicaEnabled && "replicaDataSource".equals(beanName)) {
+                    int replicaPoolSize = environment.getProperty("tml.datasource.replica.maximum-pool-size", Integer.class, 20);
+                    return limit(dataSource, "replica",
+                        environment.getProperty("tml.datasource.limiter.replica-max-connections", Integer.class, replicaPoolSize));
+                }
+                return bean;
+            }
+            
+            private DataSource limit(DataSource dataSource, String pool, int maxConnections) {
+                return new ConnectionLimitingDataSource(dataSource, pool, maxConnections,
+                    environment.getProperty("tml.datasource.limiter.acquire-timeout-ms", Long.class, 30000L),
+                    meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.trajectra.tmlcorrosion.controller;
+
+import com.trajectra.tmlcorrosion.entity.MeasurementAlert;
+import com.trajectra.tmlcorrosion.repository.MeasurementAlertRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+@CrossOrigin(origins = "http://localhost:4200", allowCredentials = "false")
+public class AlertController {
+    
+    @Autowired
+    private MeasurementAlertRepository alertRepository;
+    
+    @GetMapping
+    public List<MeasurementAlert> getAlerts(
+            @RequestParam(required = false) List<MeasurementAlert.Type> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @RequestParam(defaultValue = "" + MeasurementController.DEFAULT_PAGE_SIZE) int limit) {
+        return alertRepository.findByAlertTypeInAndMeasurementDateGreaterThanEqualOrderByIdDesc(
+            type == null || type.isEmpty() ? EnumSet.allOf(MeasurementAlert.Type.class) : type,
+            since == null ? LocalDate.of(1, 1, 1) : since,
+            PageRequest.of(0, MeasurementController.clampLimit(limit)));
+    }
+    
+    @GetMapping("/tml/{tmlRecordId}")
+    public List<MeasurementAlert> getAlertsByTml(@PathVariable Long tmlRecordId) {
+        return alertRepository.findByTmlRecordIdOrderByMeasurementDateDescIdDesc(tmlRecordId);
+    }
+}
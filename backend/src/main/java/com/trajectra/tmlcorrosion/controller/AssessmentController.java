@@ -0,0 +1,48 @@
+package com.trajectra.tmlcorrosion.controller;
+
+import com.trajectra.tmlcorrosion.dto.TmlAssessmentView;
+import com.trajectra.tmlcorrosion.repository.TmlAssessmentRepository;
+import com.trajectra.tmlcorrosion.service.CorrosionAssessmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/assessments")
+@CrossOrigin(origins = "http://localhost:4200", allowCredentials = "false")
+public class AssessmentController {
+    
+    @Autowired
+    private TmlAssessmentRepository assessmentRepository;
+    
+    @Autowired
+    private CorrosionAssessmentService assessmentService;
+    
+    @GetMapping
+    public List<TmlAssessmentView> getAllAssessments() {
+        return assessmentRepository.findAllViews();
+    }
+    
+    @GetMapping("/tml/{tmlRecordId}")
+    public ResponseEntity<TmlAssessmentView> getAssessmentByTml(@PathVariable Long tmlRecordId) {
+        return assessmentRepository.findViewByTmlRecordId(tmlRecordId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/circuit/{circuitId}")
+    public List<TmlAssessmentView> getAssessmentsByCircuit(@PathVariable String circuitId) {
+        return assessmentRepository.findViewsByCircuitId(circuitId);
+    }
+    
+    @GetMapping("/retiring")
+    public List<TmlAssessmentView> getRetiringWithin(@RequestParam double withinYears) {
+        return assessmentRepository.findViewsWithRemainingLifeAtMost(withinYears);
+    }
+    
+    @PostMapping("/recompute")
+    public CorrosionAssessmentService.RecomputeReport recomputeAssessments() {
+        return assessmentService.recomputeAll();
+    }
+}
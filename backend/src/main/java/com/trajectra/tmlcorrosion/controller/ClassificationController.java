@@ -2,6 +2,8 @@ package com.trajectra.tmlcorrosion.controller;
 
 import com.trajectra.tmlcorrosion.entity.Classification;
 import com.trajectra.tmlcorrosion.repository.ClassificationRepository;
+import com.trajectra.tmlcorrosion.service.ClassificationIndex;
+import com.trajectra.tmlcorrosion.service.DataVersion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,12 @@ public class ClassificationController {
     @Autowired
     private ClassificationRepository classificationRepository;
     
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
     @GetMapping
     public List<Classification> getAllClassifications() {
         return classificationRepository.findAll();
@@ -34,7 +42,10 @@ public class ClassificationController {
     
     @PostMapping
     public Classification createClassification(@RequestBody Classification classification) {
-        return classificationRepository.save(classification);
+        Classification saved = classificationRepository.save(classification);
+        classificationIndex.rebuild();
+        dataVersion.bump();
+        return saved;
     }
     
     @PutMapping("/{id}")
@@ -45,7 +56,10 @@ public class ClassificationController {
                 classification.setRangeLabel(classificationDetails.getRangeLabel());
                 classification.setMinValue(classificationDetails.getMinValue());
                 classification.setMaxValue(classificationDetails.getMaxValue());
-                return ResponseEntity.ok(classificationRepository.save(classification));
+                Classification saved = classificationRepository.save(classification);
+                classificationIndex.rebuild();
+                dataVersion.bump();
+                return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
     }
@@ -55,6 +69,8 @@ public class ClassificationController {
         return classificationRepository.findById(id)
             .map(classification -> {
                 classificationRepository.delete(classification);
+                classificationIndex.rebuild();
+                dataVersion.bump();
                 return ResponseEntity.ok().<Void>build();
             })
             .orElse(ResponseEntity.notFound().build());
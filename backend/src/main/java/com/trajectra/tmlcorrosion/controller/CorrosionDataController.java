@@ -1,13 +1,20 @@
 package com.trajectra.tmlcorrosion.controller;
 
-import com.trajectra.tmlcorrosion.entity.Classification;
-import com.trajectra.tmlcorrosion.entity.Measurement;
-import com.trajectra.tmlcorrosion.entity.Tml;
-import com.trajectra.tmlcorrosion.repository.ClassificationRepository;
-import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
-import com.trajectra.tmlcorrosion.repository.TmlRepository;
+import com.trajectra.tmlcorrosion.dto.CircuitRollup;
+import com.trajectra.tmlcorrosion.dto.SankeyGraph;
+import com.trajectra.tmlcorrosion.service.CircuitRollupStore;
+import com.trajectra.tmlcorrosion.service.ClassificationIndex;
+import com.trajectra.tmlcorrosion.service.LatestMeasurementStore;
+import com.trajectra.tmlcorrosion.service.SankeyGraphBuilder;
+import com.trajectra.tmlcorrosion.service.SankeyUpdateBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -15,73 +22,132 @@ import java.util.*;
 @CrossOrigin(origins = "http://localhost:4200", allowCredentials = "false")
 public class CorrosionDataController {
     
+    private static final LocalDate FIRST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+    
+    @Autowired
+    private LatestMeasurementStore latestMeasurementStore;
+    
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
     @Autowired
-    private TmlRepository tmlRepository;
+    private VersionedResponseCache responseCache;
     
     @Autowired
-    private MeasurementRepository measurementRepository;
+    private SankeyUpdateBroadcaster sankeyUpdateBroadcaster;
     
     @Autowired
-    private ClassificationRepository classificationRepository;
+    private CircuitRollupStore circuitRollupStore;
     
     @GetMapping
-    public List<Map<String, Object>> getCorrosionDataForSankey() {
-        List<Map<String, Object>> sankeyData = new ArrayList<>();
-        List<Classification> classifications = classificationRepository.findByClassificationType("corrosion_rate");
-        List<Tml> tmls = tmlRepository.findAll();
+    public ResponseEntity<List<Map<String, Object>>> getCorrosionDataForSankey(WebRequest request) {
+        return responseCache.respond(request, "corrosion-data", List.of(), this::computeSankeyLinks);
+    }
+    
+    @GetMapping(value = "/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToUpdates() {
+        return sankeyUpdateBroadcaster.subscribe();
+    }
+    
+    @GetMapping("/sankey")
+    public ResponseEntity<SankeyGraph> getCorrosionSankeyGraph(WebRequest request) {
+        return responseCache.respond(request, "corrosion-data-sankey", List.of(), () -> toSankeyGraph(
+            latestMeasurementStore.getAll(), classificationIndex.ranges(ClassificationIndex.CORROSION_RATE)));
+    }
+    
+    @GetMapping("/rollups")
+    public ResponseEntity<List<CircuitRollup>> getCircuitRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return responseCache.respond(request, "corrosion-data-rollups", Arrays.asList(from, to), () ->
+            circuitRollupStore.byCircuit(from == null ? FIRST_DATE : from, to == null ? LAST_DATE : to));
+    }
+    
+    @GetMapping("/rollups/merged")
+    public ResponseEntity<List<CircuitRollup>> getMergedRollups(
+            @RequestParam(required = false) List<String> circuits,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        List<String> circuitIds = circuits == null ? List.of() : new ArrayList<>(new TreeSet<>(circuits));
+        return responseCache.respond(request, "corrosion-data-rollups-merged", Arrays.asList(circuitIds, from, to), () ->
+            circuitRollupStore.merged(circuitIds, from == null ? FIRST_DATE : from, to == null ? LAST_DATE : to));
+    }
+    
+    private List<Map<String, Object>> computeSankeyLinks() {
+        ClassificationIndex.CompiledRanges ranges = classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+        return toSankeyLinks(latestMeasurementStore.getAll(), ranges);
+    }
+    
+    static List<Map<String, Object>> toSankeyLinks(Collection<LatestMeasurementStore.LatestReading> latestReadings,
+                                                   ClassificationIndex.CompiledRanges ranges) {
+        // Bucket each TML's latest reading into its classification range, per circuit
+        Map<String, int[]> countsByCircuit = new LinkedHashMap<>();
+        for (LatestMeasurementStore.LatestReading reading : latestReadings) {
+            if (reading.corrosionRate() == null) {
+                continue;
+            }
+            int rangeIndex = ranges.indexOf(reading.corrosionRate());
+            if (rangeIndex >= 0) {
+                countsByCircuit.computeIfAbsent(reading.circuitId(), k -> new int[ranges.size()])[rangeIndex]++;
+            }
+        }
         
-        // Group TMLs by circuit
-        Map<String, List<Tml>> tmlsByCircuit = new HashMap<>();
-        for (Tml tml : tmls) {
-            tmlsByCircuit.computeIfAbsent(tml.getCircuitId(), k -> new ArrayList<>()).add(tml);
+        List<Map<String, Object>> sankeyData = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : countsByCircuit.entrySet()) {
+            int[] circuitCounts = entry.getValue();
+            for (int i = 0; i < circuitCounts.length; i++) {
+                if (circuitCounts[i] > 0) {
+                    Map<String, Object> dataPoint = new HashMap<>();
+                    dataPoint.put("source", entry.getKey());
+                    dataPoint.put("target", ranges.label(i));
+                    dataPoint.put("value", circuitCounts[i]);
+                    sankeyData.add(dataPoint);
+                }
+            }
         }
         
-        // For each circuit, count TMLs in each classification range
-        for (Map.Entry<String, List<Tml>> entry : tmlsByCircuit.entrySet()) {
-            String circuitId = entry.getKey();
-            List<Tml> circuitTmls = entry.getValue();
-            
-            // Count TMLs by corrosion rate classification
-            Map<String, Integer> countByClassification = new HashMap<>();
-            
-            for (Tml tml : circuitTmls) {
-                // Get latest measurement for this TML
-                List<Measurement> measurements = measurementRepository.findByTmlIdOrderByMeasurementDateDesc(tml.getId());
-                if (!measurements.isEmpty()) {
-                    Measurement latestMeasurement = measurements.get(0);
-                    Double corrosionRate = latestMeasurement.getCorrosionRate();
-                    
-                    if (corrosionRate != null) {
-                        // Find which classification this rate falls into
-                        for (Classification classification : classifications) {
-                            boolean inRange = false;
-                            if (classification.getMinValue() != null && classification.getMaxValue() != null) {
-                                inRange = corrosionRate >= classification.getMinValue() && corrosionRate < classification.getMaxValue();
-                            } else if (classification.getMinValue() != null && classification.getMaxValue() == null) {
-                                inRange = corrosionRate >= classification.getMinValue();
-                            } else if (classification.getMinValue() == null && classification.getMaxValue() != null) {
-                                inRange = corrosionRate < classification.getMaxValue();
-                            }
-                            
-                            if (inRange) {
-                                countByClassification.merge(classification.getRangeLabel(), 1, Integer::sum);
-                                break;
-                            }
-                        }
-                    }
+        return sankeyData;
+    }
+    
+    static SankeyGraph toSankeyGraph(Collection<LatestMeasurementStore.LatestReading> latestReadings,
+                                     ClassificationIndex.CompiledRanges ranges) {
+        // Circuits first (sorted), then the categories that have TMLs in classification order
+        SortedSet<String> circuits = new TreeSet<>();
+        boolean[] populated = new boolean[ranges.size()];
+        for (LatestMeasurementStore.LatestReading reading : latestReadings) {
+            if (reading.corrosionRate() != null && reading.circuitId() != null) {
+                int rangeIndex = ranges.indexOf(reading.corrosionRate());
+                if (rangeIndex >= 0) {
+                    circuits.add(reading.circuitId());
+                    populated[rangeIndex] = true;
                 }
             }
-            
-            // Create Sankey data entries for this circuit
-            for (Map.Entry<String, Integer> countEntry : countByClassification.entrySet()) {
-                Map<String, Object> dataPoint = new HashMap<>();
-                dataPoint.put("source", circuitId);
-                dataPoint.put("target", countEntry.getKey());
-                dataPoint.put("value", countEntry.getValue());
-                sankeyData.add(dataPoint);
+        }
+        
+        SankeyGraphBuilder builder = new SankeyGraphBuilder();
+        for (String circuit : circuits) {
+            builder.node(circuit);
+        }
+        int[] categoryNodes = new int[ranges.size()];
+        for (int i = 0; i < populated.length; i++) {
+            if (populated[i]) {
+                categoryNodes[i] = builder.node(ranges.label(i));
             }
         }
         
-        return sankeyData;
+        for (LatestMeasurementStore.LatestReading reading : latestReadings) {
+            if (reading.corrosionRate() == null || reading.circuitId() == null) {
+                continue;
+            }
+            int rangeIndex = ranges.indexOf(reading.corrosionRate());
+            if (rangeIndex >= 0) {
+                builder.add(builder.node(reading.circuitId()), categoryNodes[rangeIndex],
+                    reading.tmlRecordId(), reading.circuitId(), reading.tmlId());
+            }
+        }
+        return builder.build();
     }
 }
\ No newline at end of file
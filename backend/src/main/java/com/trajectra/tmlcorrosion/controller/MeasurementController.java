@@ -1,14 +1,39 @@
 package com.trajectra.tmlcorrosion.controller;
 
+import com.trajectra.tmlcorrosion.dto.BatchReport;
+import com.trajectra.tmlcorrosion.dto.IngestionReport;
+import com.trajectra.tmlcorrosion.dto.KeysetPage;
+import com.trajectra.tmlcorrosion.dto.MeasurementColumns;
+import com.trajectra.tmlcorrosion.dto.MeasurementUpsert;
+import com.trajectra.tmlcorrosion.dto.MeasurementView;
 import com.trajectra.tmlcorrosion.entity.Measurement;
 import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import com.trajectra.tmlcorrosion.service.BatchWriteService;
+import com.trajectra.tmlcorrosion.service.LatestMeasurementStore;
+import com.trajectra.tmlcorrosion.service.MeasurementIngestionService;
+import com.trajectra.tmlcorrosion.service.MeasurementStreamingService;
+import com.trajectra.tmlcorrosion.service.MeasurementsChangedEvent;
+import com.trajectra.tmlcorrosion.service.TimeSeriesStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -16,50 +41,204 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200", allowCredentials = "false")
 public class MeasurementController {
     
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final int MAX_PAGE_SIZE = 5000;
+    private static final LocalDate FIRST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+    
     @Autowired
     private MeasurementRepository measurementRepository;
     
+    @Autowired
+    private LatestMeasurementStore latestMeasurementStore;
+    
+    @Autowired
+    private TimeSeriesStore timeSeriesStore;
+    
+    @Autowired
+    private MeasurementStreamingService measurementStreamingService;
+    
+    @Autowired
+    private MeasurementIngestionService measurementIngestionService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private VersionedResponseCache responseCache;
+    
+    @Autowired
+    private BatchWriteService batchWriteService;
+    
+    @Value("${tml.batch.max-items:10000}")
+    private int maxBatchItems;
+    
     @GetMapping("/testtrack")
     public String testTrackEndpoint() {
         return "Test endpoint working";
     }
     
     @GetMapping
-    public List<Measurement> getAllMeasurements() {
-        return measurementRepository.findAll();
+    public List<MeasurementView> getAllMeasurements() {
+        return measurementRepository.findAllViews();
+    }
+    
+    @GetMapping("/columnar")
+    public MeasurementColumns getAllMeasurementsColumnar() {
+        return MeasurementColumns.of(measurementRepository.findAllViews());
+    }
+    
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<MeasurementView>> getMeasurementPage(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        PageRequest page = PageRequest.of(0, clampLimit(limit));
+        long lastId = afterId == null ? 0L : afterId;
+        
+        if ("id".equals(sort)) {
+            return ResponseEntity.ok(toPage(measurementRepository.findPageAfterId(lastId, page), page, false));
+        }
+        if ("date".equals(sort)) {
+            LocalDate lastDate = afterDate == null ? FIRST_DATE : afterDate;
+            return ResponseEntity.ok(toPage(measurementRepository.findPageAfterDateAndId(lastDate, lastId, page), page, true));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamMeasurements(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return measurementStreamingService.streamAsNdjson(date);
+    }
+    
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMeasurements(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String circuitId,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        MeasurementStreamingService.ExportFormat exportFormat;
+        try {
+            exportFormat = MeasurementStreamingService.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String extension = exportFormat == MeasurementStreamingService.ExportFormat.CSV ? "csv" : "ndjson";
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+            : exportFormat == MeasurementStreamingService.ExportFormat.CSV ? MediaType.parseMediaType("text/csv")
+            : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("measurements." + extension + (gzip ? ".gz" : "")).build().toString())
+            .body(measurementStreamingService.export(exportFormat, from == null ? FIRST_DATE : from,
+                to == null ? LAST_DATE : to, circuitId, gzip));
     }
     
     @GetMapping("/tml/{tmlId:[0-9]+}")
-    public List<Measurement> getMeasurementsByTml(@PathVariable Long tmlId) {
-        return measurementRepository.findByTmlIdOrderByMeasurementDateDesc(tmlId);
+    public List<MeasurementView> getMeasurementsByTml(@PathVariable Long tmlId) {
+        return measurementRepository.findViewsByTmlId(tmlId);
+    }
+    
+    @GetMapping("/tml/{tmlId:[0-9]+}/latest")
+    public ResponseEntity<LatestMeasurementStore.LatestReading> getLatestMeasurementByTml(@PathVariable Long tmlId) {
+        return latestMeasurementStore.get(tmlId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/latest")
+    public Collection<LatestMeasurementStore.LatestReading> getLatestMeasurements() {
+        return latestMeasurementStore.getAll();
+    }
+    
+    @PostMapping("/latest/rebuild")
+    public Map<String, Integer> rebuildLatestMeasurements() {
+        return Map.of("tmlCount", latestMeasurementStore.rebuild());
     }
     
     @GetMapping("/date/{date}")
-    public List<Measurement> getMeasurementsByDate(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return measurementRepository.findByMeasurementDate(date);
+    public List<MeasurementView> getMeasurementsByDate(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return measurementRepository.findViewsByMeasurementDate(date);
+    }
+    
+    @GetMapping("/date/{date}/page")
+    public KeysetPage<MeasurementView> getMeasurementPageByDate(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        PageRequest page = PageRequest.of(0, clampLimit(limit));
+        List<MeasurementView> items = measurementRepository.findPageByMeasurementDateAfterId(date, afterId == null ? 0L : afterId, page);
+        return toPage(items, page, false);
     }
     
     @GetMapping("/dates")
-    public List<LocalDate> getUniqueMeasurementDates() {
-        return measurementRepository.findDistinctMeasurementDates();
+    public ResponseEntity<List<LocalDate>> getUniqueMeasurementDates(WebRequest request) {
+        return responseCache.respond(request, "measurement-dates", List.of(),
+            () -> timeSeriesStore.measurementDates().orElseGet(measurementRepository::findDistinctMeasurementDates));
     }
     
     
     @PostMapping
     public Measurement createMeasurement(@RequestBody Measurement measurement) {
-        return measurementRepository.save(measurement);
+        Measurement saved = measurementRepository.save(measurement);
+        eventPublisher.publishEvent(MeasurementsChangedEvent.of(saved.getTml().getId(), saved.getMeasurementDate()));
+        return saved;
+    }
+    
+    @PostMapping(value = "/bulk", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<IngestionReport> bulkIngestMeasurements(
+            @RequestHeader("Content-Type") String contentType,
+            InputStream body) throws IOException {
+        MeasurementIngestionService.Format format = contentType.startsWith("text/csv")
+            ? MeasurementIngestionService.Format.CSV
+            : MeasurementIngestionService.Format.NDJSON;
+        try {
+            return measurementIngestionService.ingest(body, format)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<BatchReport> upsertMeasurements(@RequestBody List<MeasurementUpsert> items) {
+        if (items.size() > maxBatchItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(batchWriteService.upsertMeasurements(items));
+    }
+    
+    @PostMapping("/batch/delete")
+    public ResponseEntity<BatchReport> deleteMeasurements(@RequestBody List<Long> ids) {
+        if (ids.size() > maxBatchItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(batchWriteService.deleteMeasurements(ids));
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<Measurement> updateMeasurement(@PathVariable Long id, @RequestBody Measurement measurementDetails) {
         return measurementRepository.findById(id)
             .map(measurement -> {
+                Long previousTmlId = measurement.getTml().getId();
+                LocalDate previousDate = measurement.getMeasurementDate();
                 measurement.setTml(measurementDetails.getTml());
                 measurement.setMeasurementDate(measurementDetails.getMeasurementDate());
                 measurement.setThickness(measurementDetails.getThickness());
                 measurement.setTemperature(measurementDetails.getTemperature());
                 measurement.setCorrosionRate(measurementDetails.getCorrosionRate());
-                return ResponseEntity.ok(measurementRepository.save(measurement));
+                // save() commits on its own; the event goes out only once the edit is durable
+                Measurement saved = measurementRepository.save(measurement);
+                eventPublisher.publishEvent(new MeasurementsChangedEvent.Builder()
+                    .touch(previousTmlId, previousDate)
+                    .touch(saved.getTml().getId(), saved.getMeasurementDate())
+                    .build());
+                return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
     }
@@ -69,8 +248,21 @@ public class MeasurementController {
         return measurementRepository.findById(id)
             .map(measurement -> {
                 measurementRepository.delete(measurement);
+                eventPublisher.publishEvent(MeasurementsChangedEvent.of(measurement.getTml().getId(), measurement.getMeasurementDate()));
                 return ResponseEntity.ok().<Void>build();
             })
             .orElse(ResponseEntity.notFound().build());
     }
+    
+    static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+    
+    private static KeysetPage<MeasurementView> toPage(List<MeasurementView> items, PageRequest page, boolean dateCursor) {
+        if (items.size() < page.getPageSize()) {
+            return new KeysetPage<>(items, null);
+        }
+        MeasurementView last = items.get(items.size() - 1);
+        return new KeysetPage<>(items, new KeysetPage.Cursor(last.id(), dateCursor ? last.measurementDate() : null));
+    }
 }
\ No newline at end of file
@@ -1,12 +1,20 @@
 package com.trajectra.tmlcorrosion.controller;
 
-import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import com.trajectra.tmlcorrosion.dto.SankeyGraph;
+import com.trajectra.tmlcorrosion.dto.SpecificTmlTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingColumns;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TrajectoryResponse;
+import com.trajectra.tmlcorrosion.dto.TransitionCount;
+import com.trajectra.tmlcorrosion.service.TemporalTrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/temporal")
@@ -14,19 +22,62 @@ import java.util.Map;
 public class TemporalController {
     
     @Autowired
-    private MeasurementRepository measurementRepository;
+    private TemporalTrackingService temporalTrackingService;
+    
+    @Autowired
+    private VersionedResponseCache responseCache;
     
     @GetMapping("/tracking")
-    public List<Map<String, Object>> getTemporalTracking(
+    public ResponseEntity<List<TemporalTrackingRow>> getTemporalTracking(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam Double maxCorrosionRate,
+            @RequestParam(defaultValue = "false") boolean asOf,
+            @RequestParam(required = false) Integer toleranceDays,
+            WebRequest request) {
+        
+        return responseCache.respond(request, "temporal-tracking", Arrays.asList(startDate, endDate, maxCorrosionRate, asOf, toleranceDays),
+            () -> temporalTrackingService.getTemporalTracking(startDate, endDate, maxCorrosionRate, asOf, toleranceDays));
+    }
+    
+    @GetMapping("/tracking/columnar")
+    public ResponseEntity<TemporalTrackingColumns> getTemporalTrackingColumnar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam Double maxCorrosionRate,
+            @RequestParam(defaultValue = "false") boolean asOf,
+            @RequestParam(required = false) Integer toleranceDays,
+            WebRequest request) {
+        
+        return responseCache.respond(request, "temporal-tracking-columnar", Arrays.asList(startDate, endDate, maxCorrosionRate, asOf, toleranceDays),
+            () -> TemporalTrackingColumns.of(
+                temporalTrackingService.getTemporalTracking(startDate, endDate, maxCorrosionRate, asOf, toleranceDays)));
+    }
+    
+    @GetMapping("/sankey")
+    public ResponseEntity<SankeyGraph> getTemporalSankey(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam Double maxCorrosionRate,
+            WebRequest request) {
+        
+        return responseCache.respond(request, "temporal-sankey", Arrays.asList(startDate, endDate, maxCorrosionRate),
+            () -> temporalTrackingService.getTemporalSankey(startDate, endDate, maxCorrosionRate));
+    }
+    
+    @GetMapping("/transitions")
+    public ResponseEntity<List<TransitionCount>> getTransitionCounts(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam Double maxCorrosionRate) {
+            @RequestParam Double maxCorrosionRate,
+            WebRequest request) {
         
-        return measurementRepository.findTemporalTracking(startDate, endDate, maxCorrosionRate);
+        return responseCache.respond(request, "temporal-transitions", Arrays.asList(startDate, endDate, maxCorrosionRate),
+            () -> temporalTrackingService.getTransitionCounts(startDate, endDate, maxCorrosionRate));
     }
     
     @GetMapping("/tracking-specific")
-    public List<Map<String, Object>> getTemporalTrackingForSpecificTmls(
+    public List<SpecificTmlTrackingRow> getTemporalTrackingForSpecificTmls(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam String tmlIds) {
@@ -42,6 +93,14 @@ public class TemporalController {
             }
         }
         
-        return measurementRepository.findTemporalTrackingForSpecificTmls(startDate, endDate, tmlIdList);
+        return temporalTrackingService.getTemporalTrackingForSpecificTmls(startDate, endDate, tmlIdList);
+    }
+    
+    @GetMapping("/trajectory")
+    public TrajectoryResponse getTrajectory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) List<LocalDate> dates,
+            @RequestParam(required = false) Double maxCorrosionRate) {
+        
+        return temporalTrackingService.getTrajectory(dates, maxCorrosionRate);
     }
 }
\ No newline at end of file
@@ -1,11 +1,22 @@
 package com.trajectra.tmlcorrosion.controller;
 
+import com.trajectra.tmlcorrosion.dto.BatchReport;
+import com.trajectra.tmlcorrosion.dto.KeysetPage;
+import com.trajectra.tmlcorrosion.dto.TmlSummary;
+import com.trajectra.tmlcorrosion.dto.TmlUpsert;
 import com.trajectra.tmlcorrosion.entity.Tml;
 import com.trajectra.tmlcorrosion.repository.TmlRepository;
+import com.trajectra.tmlcorrosion.service.BatchWriteService;
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.MeasurementsChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/tmls")
@@ -15,9 +26,33 @@ public class TmlController {
     @Autowired
     private TmlRepository tmlRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    @Autowired
+    private BatchWriteService batchWriteService;
+    
+    @Value("${tml.batch.max-items:10000}")
+    private int maxBatchItems;
+    
     @GetMapping
-    public List<Tml> getAllTmls() {
-        return tmlRepository.findAll();
+    public List<TmlSummary> getAllTmls() {
+        return tmlRepository.findAllSummaries();
+    }
+    
+    @GetMapping("/page")
+    public KeysetPage<TmlSummary> getTmlPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "" + MeasurementController.DEFAULT_PAGE_SIZE) int limit) {
+        PageRequest page = PageRequest.of(0, MeasurementController.clampLimit(limit));
+        List<TmlSummary> items = tmlRepository.findPageAfterId(afterId == null ? 0L : afterId, page);
+        if (items.size() < page.getPageSize()) {
+            return new KeysetPage<>(items, null);
+        }
+        return new KeysetPage<>(items, new KeysetPage.Cursor(items.get(items.size() - 1).id(), null));
     }
     
     @GetMapping("/{id}")
@@ -28,13 +63,15 @@ public class TmlController {
     }
     
     @GetMapping("/circuit/{circuitId}")
-    public List<Tml> getTmlsByCircuit(@PathVariable String circuitId) {
-        return tmlRepository.findByCircuitId(circuitId);
+    public List<TmlSummary> getTmlsByCircuit(@PathVariable String circuitId) {
+        return tmlRepository.findSummariesByCircuitId(circuitId);
     }
     
     @PostMapping
     public Tml createTml(@RequestBody Tml tml) {
-        return tmlRepository.save(tml);
+        Tml saved = tmlRepository.save(tml);
+        dataVersion.bump();
+        return saved;
     }
     
     @PutMapping("/{id}")
@@ -43,18 +80,34 @@ public class TmlController {
             .map(tml -> {
                 tml.setCircuitId(tmlDetails.getCircuitId());
                 tml.setTmlId(tmlDetails.getTmlId());
-                return ResponseEntity.ok(tmlRepository.save(tml));
+                Tml saved = tmlRepository.save(tml);
+                // Read models carry circuit and TML labels alongside the readings
+                eventPublisher.publishEvent(new MeasurementsChangedEvent(Set.of(saved.getId()), Set.of()));
+                return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
     }
     
+    @PostMapping("/batch")
+    public ResponseEntity<BatchReport> upsertTmls(@RequestBody List<TmlUpsert> items) {
+        if (items.size() > maxBatchItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(batchWriteService.upsertTmls(items));
+    }
+    
+    @PostMapping("/batch/delete")
+    public ResponseEntity<BatchReport> deleteTmls(@RequestBody List<Long> ids) {
+        if (ids.size() > maxBatchItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(batchWriteService.deleteTmls(ids));
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTml(@PathVariable Long id) {
-        return tmlRepository.findById(id)
-            .map(tml -> {
-                tmlRepository.delete(tml);
-                return ResponseEntity.ok().<Void>build();
-            })
-            .orElse(ResponseEntity.notFound().build());
+        // Measurements go in one statement rather than through the cascaded collection
+        BatchReport report = batchWriteService.deleteTmls(List.of(id));
+        return report.deleted() > 0 ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
     }
 }
\ No newline at end of file
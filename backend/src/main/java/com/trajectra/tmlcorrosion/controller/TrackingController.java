@@ -1,12 +1,16 @@
 package com.trajectra.tmlcorrosion.controller;
 
-import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingColumns;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.service.TemporalTrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/tracking")
@@ -14,7 +18,10 @@ import java.util.Map;
 public class TrackingController {
     
     @Autowired
-    private MeasurementRepository measurementRepository;
+    private TemporalTrackingService temporalTrackingService;
+    
+    @Autowired
+    private VersionedResponseCache responseCache;
     
     @GetMapping("/test")
     public String testEndpoint() {
@@ -22,11 +29,29 @@ public class TrackingController {
     }
     
     @GetMapping("/temporal")
-    public List<Map<String, Object>> getTemporalTracking(
+    public ResponseEntity<List<TemporalTrackingRow>> getTemporalTracking(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam Double maxCorrosionRate,
+            @RequestParam(defaultValue = "false") boolean asOf,
+            @RequestParam(required = false) Integer toleranceDays,
+            WebRequest request) {
+        
+        return responseCache.respond(request, "temporal-tracking", Arrays.asList(startDate, endDate, maxCorrosionRate, asOf, toleranceDays),
+            () -> temporalTrackingService.getTemporalTracking(startDate, endDate, maxCorrosionRate, asOf, toleranceDays));
+    }
+    
+    @GetMapping("/temporal/columnar")
+    public ResponseEntity<TemporalTrackingColumns> getTemporalTrackingColumnar(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam Double maxCorrosionRate) {
+            @RequestParam Double maxCorrosionRate,
+            @RequestParam(defaultValue = "false") boolean asOf,
+            @RequestParam(required = false) Integer toleranceDays,
+            WebRequest request) {
         
-        return measurementRepository.findTemporalTracking(startDate, endDate, maxCorrosionRate);
+        return responseCache.respond(request, "temporal-tracking-columnar", Arrays.asList(startDate, endDate, maxCorrosionRate, asOf, toleranceDays),
+            () -> TemporalTrackingColumns.of(
+                temporalTrackingService.getTemporalTracking(startDate, endDate, maxCorrosionRate, asOf, toleranceDays)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.trajectra.tmlcorrosion.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Dashboard responses keyed by (endpoint, params, data version), with strong ETags so a client
+ * holding the current version gets a 304 without any database work. Entries for older versions
+ * are never served again and simply age out.
+ * <p>
+ * The cache is bounded by the serialized size of its bodies, measured once when an entry is
+ * stored, so a few large tracking payloads cannot crowd out the heap.
+ */
+@Component
+public class VersionedResponseCache {
+    
+    private record Key(String endpoint, List<?> params, long version) {}
+    
+    private record Entry(Object body, int weight) {}
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final Cache<Key, Entry> entries;
+    
+    public VersionedResponseCache(@Value("${tml.response-cache.max-size:64MB}") DataSize maxSize) {
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher((Key key, Entry entry) -> entry.weight())
+            .build();
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> respond(WebRequest request, String endpoint, List<?> params, Supplier<T> compute) {
+        // Read the version before computing: a write landing mid-computation files the result under the old key
+        Key key = new Key(endpoint, params, dataVersion.current());
+        String etag = etag(key);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        
+        Entry cached = entries.getIfPresent(key);
+        T body;
+        if (cached != null) {
+            body = (T) cached.body();
+        } else {
+            // Identical misses (e.g. the whole shift opening the dashboard) share one computation
+            body = singleFlight.execute(key, () -> {
+                T computed = compute.get();
+                entries.put(key, new Entry(computed, serializedSize(computed)));
+                return computed;
+            });
+        }
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
+    
+    private int serializedSize(Object body) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(counter, body);
+        } catch (IOException e) {
+            // Not serializable as-is; weigh it at the limit so it is dropped rather than held unmeasured
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(counter.count, Integer.MAX_VALUE);
+    }
+    
+    private static String etag(Key key) {
+        StringBuilder canonical = new StringBuilder();
+        appendCanonical(canonical, key.endpoint());
+        appendCanonical(canonical, key.params());
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = sha256.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + Long.toHexString(key.version()) + "-"
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+    }
+    
+    // Length-prefixed, so no two distinct parameter lists (nested lists, nulls, separators inside values) share an encoding
+    private static void appendCanonical(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append('n');
+        } else if (value instanceof List<?> list) {
+            out.append('l').append(list.size()).append(':');
+            for (Object element : list) {
+                appendCanonical(out, element);
+            }
+        } else {
+            String text = value.toString();
+            out.append('s').append(text.length()).append(':').append(text);
+        }
+    }
+    
+    private static final class CountingOutputStream extends OutputStream {
+        
+        long count;
+        
+        @Override
+        public void write(int b) {
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+
+public interface AsOfTrackingProjection {
+    Long getTmlRecordId();
+    String getCircuitId();
+    String getTmlId();
+    Double getStartRate();
+    Double getEndRate();
+    LocalDate getStartMeasurementDate();
+    LocalDate getEndMeasurementDate();
+}
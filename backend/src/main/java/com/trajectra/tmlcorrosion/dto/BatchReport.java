@@ -0,0 +1,33 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Outcome of a batch write. Items are reported in request order; rejected items are skipped
+ * while the rest of the batch is applied in a single transaction.
+ */
+public record BatchReport(int created, int updated, int unchanged, int deleted, int rejected, long elapsedMillis, List<Item> items) {
+    
+    public enum Status { CREATED, UPDATED, UNCHANGED, DELETED, NOT_FOUND, CONFLICT, INVALID }
+    
+    public record Item(int index, Long id, Status status, @JsonInclude(JsonInclude.Include.NON_NULL) String message) {}
+    
+    public static BatchReport of(List<Item> items, long elapsedMillis) {
+        int created = 0;
+        int updated = 0;
+        int unchanged = 0;
+        int deleted = 0;
+        int rejected = 0;
+        for (Item item : items) {
+            switch (item.status()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+                case DELETED -> deleted++;
+                default -> rejected++;
+            }
+        }
+        return new BatchReport(created, updated, unchanged, deleted, rejected, elapsedMillis, items);
+    }
+}
@@ -0,0 +1,21 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
+
+/**
+ * Distribution of one circuit's readings on one inspection date, or of several circuits merged
+ * (then {@code circuitId} is omitted). Rate percentiles are t-digest estimates; counts,
+ * maximum rate and minimum thickness are exact.
+ */
+public record CircuitRollup(
+    @JsonInclude(JsonInclude.Include.NON_NULL) String circuitId,
+    LocalDate measurementDate,
+    long readings,
+    Double p50Rate,
+    Double p90Rate,
+    Double p99Rate,
+    Double maxRate,
+    Double minThickness,
+    long tmlsOverThreshold
+) {}
@@ -0,0 +1,14 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.util.List;
+
+public record IngestionReport(
+    long rowsRead,
+    long rowsInserted,
+    long rowsRejected,
+    int chunksCommitted,
+    int chunksFailed,
+    long elapsedMillis,
+    double rowsPerSecond,
+    List<String> errors
+) {}
@@ -0,0 +1,14 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} holds the key of the last row and is
+ * passed back as {@code afterId}/{@code afterDate} to fetch the following page; it is null on
+ * the last page.
+ */
+public record KeysetPage<T>(List<T> items, Cursor next) {
+    
+    public record Cursor(Long afterId, LocalDate afterDate) {}
+}
@@ -0,0 +1,14 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+
+public interface LatestMeasurementProjection {
+    Long getTmlRecordId();
+    String getCircuitId();
+    String getTmlId();
+    Long getMeasurementId();
+    LocalDate getMeasurementDate();
+    Double getThickness();
+    Double getTemperature();
+    Double getCorrosionRate();
+}
@@ -0,0 +1,36 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** Column-oriented form of a measurement listing: one array per field instead of one object per row. */
+public record MeasurementColumns(
+    int size,
+    long[] id,
+    long[] tmlRecordId,
+    String[] circuitId,
+    String[] tmlId,
+    LocalDate[] measurementDate,
+    Double[] thickness,
+    Double[] temperature,
+    Double[] corrosionRate
+) {
+    
+    public static MeasurementColumns of(List<MeasurementView> rows) {
+        int size = rows.size();
+        MeasurementColumns columns = new MeasurementColumns(size, new long[size], new long[size], new String[size],
+            new String[size], new LocalDate[size], new Double[size], new Double[size], new Double[size]);
+        for (int i = 0; i < size; i++) {
+            MeasurementView row = rows.get(i);
+            columns.id[i] = row.id();
+            columns.tmlRecordId[i] = row.tml().id();
+            columns.circuitId[i] = row.tml().circuitId();
+            columns.tmlId[i] = row.tml().tmlId();
+            columns.measurementDate[i] = row.measurementDate();
+            columns.thickness[i] = row.thickness();
+            columns.temperature[i] = row.temperature();
+            columns.corrosionRate[i] = row.corrosionRate();
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,13 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+
+/** Batch item: updates measurement {@code id}, or the TML's reading on that date when no id is given. */
+public record MeasurementUpsert(
+    Long id,
+    Long tmlRecordId,
+    LocalDate measurementDate,
+    Double thickness,
+    Double temperature,
+    Double corrosionRate
+) {}
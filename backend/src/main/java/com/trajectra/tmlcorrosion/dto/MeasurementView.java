@@ -0,0 +1,22 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only measurement row. Serializes to the same JSON as the {@code Measurement} entity
+ * but is built directly from a JPQL constructor expression, outside the persistence context.
+ */
+public record MeasurementView(
+    Long id,
+    TmlSummary tml,
+    LocalDate measurementDate,
+    Double thickness,
+    Double temperature,
+    Double corrosionRate
+) {
+    
+    public MeasurementView(Long id, Long tmlRecordId, String circuitId, String tmlId, LocalDate measurementDate,
+                           Double thickness, Double temperature, Double corrosionRate) {
+        this(id, new TmlSummary(tmlRecordId, circuitId, tmlId), measurementDate, thickness, temperature, corrosionRate);
+    }
+}
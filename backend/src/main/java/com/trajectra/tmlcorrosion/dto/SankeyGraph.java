@@ -0,0 +1,14 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.util.List;
+
+/**
+ * Ready-to-render Sankey graph. Every TML appears once in {@code members} (parallel arrays,
+ * ordered by circuit and then TML id) and links reference their TMLs as sorted member indexes.
+ */
+public record SankeyGraph(List<String> nodes, List<Link> links, Members members) {
+    
+    public record Link(int source, int target, int value, int[] members) {}
+    
+    public record Members(List<String> circuits, int[] circuit, long[] tmlRecordId, String[] tmlId) {}
+}
@@ -0,0 +1,12 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.util.List;
+
+/**
+ * Circuit-to-category links pushed to dashboard subscribers. A snapshot carries every link; a
+ * delta carries only links whose count changed, with 0 meaning the link is gone.
+ */
+public record SankeyUpdate(long version, boolean snapshot, List<Link> links) {
+    
+    public record Link(String source, String target, int value) {}
+}
@@ -0,0 +1,20 @@
+package com.trajectra.tmlcorrosion.dto;
+
+public record SpecificTmlTrackingRow(
+    Long tmlRecordId,
+    String circuitId,
+    String tmlId,
+    Double startCorrosionRate,
+    Double endCorrosionRate,
+    String endCategory
+) {
+    
+    public SpecificTmlTrackingRow(Long tmlRecordId, String circuitId, String tmlId, Double startCorrosionRate,
+                                  Double endCorrosionRate) {
+        this(tmlRecordId, circuitId, tmlId, startCorrosionRate, endCorrosionRate, null);
+    }
+    
+    public SpecificTmlTrackingRow withEndCategory(String category) {
+        return new SpecificTmlTrackingRow(tmlRecordId, circuitId, tmlId, startCorrosionRate, endCorrosionRate, category);
+    }
+}
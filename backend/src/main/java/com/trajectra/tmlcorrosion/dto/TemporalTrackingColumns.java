@@ -0,0 +1,31 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.util.List;
+
+/** Column-oriented form of a temporal tracking result: one array per field instead of one object per row. */
+public record TemporalTrackingColumns(
+    int size,
+    long[] tmlRecordId,
+    String[] circuitId,
+    String[] tmlId,
+    Double[] startRate,
+    Double[] endRate,
+    String[] endCategory
+) {
+    
+    public static TemporalTrackingColumns of(List<TemporalTrackingRow> rows) {
+        int size = rows.size();
+        TemporalTrackingColumns columns = new TemporalTrackingColumns(size, new long[size], new String[size],
+            new String[size], new Double[size], new Double[size], new String[size]);
+        for (int i = 0; i < size; i++) {
+            TemporalTrackingRow row = rows.get(i);
+            columns.tmlRecordId[i] = row.tmlRecordId();
+            columns.circuitId[i] = row.circuitId();
+            columns.tmlId[i] = row.tmlId();
+            columns.startRate[i] = row.startRate();
+            columns.endRate[i] = row.endRate();
+            columns.endCategory[i] = row.endCategory();
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,29 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
+
+/**
+ * One TML tracked between two dates. The measurement dates are only set by as-of lookups,
+ * where they can differ from the requested dates.
+ */
+public record TemporalTrackingRow(
+    Long tmlRecordId,
+    String circuitId,
+    String tmlId,
+    Double startRate,
+    Double endRate,
+    String endCategory,
+    @JsonInclude(JsonInclude.Include.NON_NULL) LocalDate startMeasurementDate,
+    @JsonInclude(JsonInclude.Include.NON_NULL) LocalDate endMeasurementDate
+) {
+    
+    public TemporalTrackingRow(Long tmlRecordId, String circuitId, String tmlId, Double startRate, Double endRate) {
+        this(tmlRecordId, circuitId, tmlId, startRate, endRate, null, null, null);
+    }
+    
+    public TemporalTrackingRow withEndCategory(String category) {
+        return new TemporalTrackingRow(tmlRecordId, circuitId, tmlId, startRate, endRate, category,
+            startMeasurementDate, endMeasurementDate);
+    }
+}
@@ -0,0 +1,20 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** A TML assessment joined with the TML's circuit and tag. Rates are in mpy. */
+public record TmlAssessmentView(
+    Long tmlRecordId,
+    String circuitId,
+    String tmlId,
+    Integer readingCount,
+    LocalDate firstDate,
+    LocalDate lastDate,
+    Double currentThickness,
+    Double shortTermRate,
+    Double longTermRate,
+    Double remainingLifeYears,
+    LocalDate retirementDate,
+    LocalDateTime computedAt
+) {}
@@ -0,0 +1,3 @@
+package com.trajectra.tmlcorrosion.dto;
+
+public record TmlSummary(Long id, String circuitId, String tmlId) {}
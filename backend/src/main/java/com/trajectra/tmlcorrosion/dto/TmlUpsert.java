@@ -0,0 +1,4 @@
+package com.trajectra.tmlcorrosion.dto;
+
+/** Batch item: updates TML {@code id}, or the TML with this circuit and TML id when no id is given. */
+public record TmlUpsert(Long id, String circuitId, String tmlId) {}
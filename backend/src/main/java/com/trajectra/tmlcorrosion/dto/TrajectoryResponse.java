@@ -0,0 +1,17 @@
+package com.trajectra.tmlcorrosion.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record TrajectoryResponse(List<LocalDate> dates, List<Transition> transitions) {
+    
+    public record Transition(
+        int fromStage,
+        int toStage,
+        LocalDate fromDate,
+        LocalDate toDate,
+        String source,
+        String target,
+        int value
+    ) {}
+}
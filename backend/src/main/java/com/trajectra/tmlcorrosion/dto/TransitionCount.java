@@ -0,0 +1,4 @@
+package com.trajectra.tmlcorrosion.dto;
+
+/** Number of TMLs in a circuit that moved from one corrosion-rate category to another between two dates. */
+public record TransitionCount(String circuitId, String fromCategory, String toCategory, int count) {}
@@ -0,0 +1,45 @@
+package com.trajectra.tmlcorrosion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** A reading flagged by the anomaly detector. At most one alert per measurement and type. */
+@Entity
+@Table(name = "measurement_alerts",
+    uniqueConstraints = @UniqueConstraint(columnNames = { "measurement_id", "alert_type" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementAlert {
+    
+    public enum Type { RATE_ACCELERATION, THICKNESS_INCREASE, TEMPERATURE_OUTLIER }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "tml_record_id", nullable = false)
+    private Long tmlRecordId;
+    
+    @Column(name = "measurement_id", nullable = false)
+    private Long measurementId;
+    
+    @Column(name = "measurement_date", nullable = false)
+    private LocalDate measurementDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "alert_type", nullable = false, length = 32)
+    private Type alertType;
+    
+    // The flagged value and what the TML's history led us to expect
+    private Double observed;
+    
+    private Double expected;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
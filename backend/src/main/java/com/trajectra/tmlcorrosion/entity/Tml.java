@@ -1,6 +1,8 @@
 package com.trajectra.tmlcorrosion.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,14 +11,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 
 @Entity
-@Table(name = "tmls")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "tmls", uniqueConstraints = @UniqueConstraint(columnNames = { "circuit_id", "tml_id" }))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Tml {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tml_seq")
+    @SequenceGenerator(name = "tml_seq", sequenceName = "tmls_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "circuit_id", nullable = false)
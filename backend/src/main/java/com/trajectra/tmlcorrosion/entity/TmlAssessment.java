@@ -0,0 +1,50 @@
+package com.trajectra.tmlcorrosion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Corrosion rates and remaining life derived from a TML's thickness history. Rows are written
+ * by the assessment engine, one per TML that has at least one thickness reading.
+ */
+@Entity
+@Table(name = "tml_assessments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TmlAssessment {
+    @Id
+    @Column(name = "tml_record_id")
+    private Long tmlRecordId;
+    
+    @Column(name = "reading_count", nullable = false)
+    private Integer readingCount;
+    
+    @Column(name = "first_date", nullable = false)
+    private LocalDate firstDate;
+    
+    @Column(name = "last_date", nullable = false)
+    private LocalDate lastDate;
+    
+    @Column(name = "current_thickness", nullable = false)
+    private Double currentThickness;
+    
+    @Column(name = "short_term_rate")
+    private Double shortTermRate;
+    
+    @Column(name = "long_term_rate")
+    private Double longTermRate;
+    
+    @Column(name = "remaining_life_years")
+    private Double remainingLifeYears;
+    
+    @Column(name = "retirement_date")
+    private LocalDate retirementDate;
+    
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,76 @@
+package com.trajectra.tmlcorrosion.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+
+/**
+ * Wraps connections so every executed statement and every row read from a result set is
+ * counted in {@link RequestQueryStats}. Covers JPA and JdbcTemplate access alike.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+    
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+    
+    private static <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+            new Class<?>[] { type }, new CountingHandler(target)));
+    }
+    
+    private static Object wrapResult(Object result) {
+        if (result instanceof CallableStatement statement) {
+            return proxy(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement);
+        }
+        if (result instanceof ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet);
+        }
+        return result;
+    }
+    
+    private record CountingHandler(Object target) implements InvocationHandler {
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            
+            String name = method.getName();
+            if (target instanceof ResultSet) {
+                if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                    RequestQueryStats.rowRead();
+                }
+                return result;
+            }
+            if (target instanceof Statement && name.startsWith("execute")) {
+                RequestQueryStats.statementExecuted();
+            }
+            return wrapResult(result);
+        }
+    }
+}
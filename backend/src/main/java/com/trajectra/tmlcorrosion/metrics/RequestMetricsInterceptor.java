@@ -0,0 +1,104 @@
+package com.trajectra.tmlcorrosion.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import java.util.concurrent.Callable;
+
+/**
+ * Records SQL statements and rows read per request, tagged by URI pattern, and logs a warning
+ * when a single request exceeds the configured statement count (typically an N+1 query).
+ * <p>
+ * Each thread that works on a request keeps its own tally and adds it to a request-wide total.
+ * For async handlers (streaming bodies) that covers the servlet thread, the async task thread
+ * (through the {@link CallableProcessingInterceptor} callbacks) and the final async dispatch,
+ * which records the total once. SSE events are pushed by the broadcaster for all subscribers
+ * and are not attributed to any one request.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+    
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsInterceptor.class);
+    
+    private static final String STATS_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".stats";
+    
+    private final MeterRegistry meterRegistry;
+    private final long statementWarnThreshold;
+    
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry, long statementWarnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.statementWarnThreshold = statementWarnThreshold;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestQueryStats.begin();
+        if (request.getAttribute(STATS_ATTRIBUTE) == null) {
+            // Set before the handler runs, so an async task that starts right away finds it
+            request.setAttribute(STATS_ATTRIBUTE, new RequestQueryStats());
+        }
+        return true;
+    }
+    
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // afterCompletion only runs on the final async dispatch; release this thread now
+        addTo(request.getAttribute(STATS_ATTRIBUTE), RequestQueryStats.end());
+    }
+    
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        if (request.getAttribute(STATS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            RequestQueryStats.begin();
+        }
+    }
+    
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        addTo(request.getAttribute(STATS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST), RequestQueryStats.end());
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestQueryStats stats = (RequestQueryStats) request.getAttribute(STATS_ATTRIBUTE);
+        addTo(stats, RequestQueryStats.end());
+        if (stats == null) {
+            return;
+        }
+        request.removeAttribute(STATS_ATTRIBUTE);
+        
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        
+        DistributionSummary.builder("tml.http.sql.statements")
+            .description("JDBC statements executed per request")
+            .tags("uri", uri, "method", request.getMethod())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(stats.getStatements());
+        DistributionSummary.builder("tml.http.rows.read")
+            .description("Result-set rows read per request")
+            .tags("uri", uri, "method", request.getMethod())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(stats.getRows());
+        
+        if (stats.getStatements() > statementWarnThreshold) {
+            log.warn("{} {} issued {} SQL statements (threshold {}), {} rows read",
+                request.getMethod(), uri, stats.getStatements(), statementWarnThreshold, stats.getRows());
+        }
+    }
+    
+    private static void addTo(Object total, RequestQueryStats stats) {
+        if (total != null && stats != null) {
+            ((RequestQueryStats) total).add(stats);
+        }
+    }
+}
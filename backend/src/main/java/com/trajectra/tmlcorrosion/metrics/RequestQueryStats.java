@@ -0,0 +1,54 @@
+package com.trajectra.tmlcorrosion.metrics;
+
+/**
+ * Per-thread tally of JDBC statements executed and result-set rows read while a request is
+ * being handled. Counting is a no-op outside of {@link #begin()} / {@link #end()}.
+ */
+public final class RequestQueryStats {
+    
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+    
+    private long statements;
+    private long rows;
+    
+    RequestQueryStats() {
+    }
+    
+    public static void begin() {
+        CURRENT.set(new RequestQueryStats());
+    }
+    
+    public static RequestQueryStats end() {
+        RequestQueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+    
+    static void statementExecuted() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+    
+    static void rowRead() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows++;
+        }
+    }
+    
+    /** Folds in the tally of another thread that worked on the same request. */
+    public synchronized void add(RequestQueryStats other) {
+        statements += other.statements;
+        rows += other.rows;
+    }
+    
+    public synchronized long getStatements() {
+        return statements;
+    }
+    
+    public synchronized long getRows() {
+        return rows;
+    }
+}
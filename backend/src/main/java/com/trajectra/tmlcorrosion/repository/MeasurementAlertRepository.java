@@ -0,0 +1,17 @@
+package com.trajectra.tmlcorrosion.repository;
+
+import com.trajectra.tmlcorrosion.entity.MeasurementAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MeasurementAlertRepository extends JpaRepository<MeasurementAlert, Long> {
+    List<MeasurementAlert> findByAlertTypeInAndMeasurementDateGreaterThanEqualOrderByIdDesc(
+        Collection<MeasurementAlert.Type> alertTypes, LocalDate since, Pageable pageable);
+    
+    List<MeasurementAlert> findByTmlRecordIdOrderByMeasurementDateDescIdDesc(Long tmlRecordId);
+}
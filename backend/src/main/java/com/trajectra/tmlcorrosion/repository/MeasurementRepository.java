@@ -1,13 +1,25 @@
 package com.trajectra.tmlcorrosion.repository;
 
+import com.trajectra.tmlcorrosion.config.CacheConfig;
+import com.trajectra.tmlcorrosion.dto.AsOfTrackingProjection;
+import com.trajectra.tmlcorrosion.dto.LatestMeasurementProjection;
+import com.trajectra.tmlcorrosion.dto.MeasurementView;
+import com.trajectra.tmlcorrosion.dto.SpecificTmlTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
 import com.trajectra.tmlcorrosion.entity.Measurement;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 @Repository
 public interface MeasurementRepository extends JpaRepository<Measurement, Long> {
@@ -19,60 +31,197 @@ public interface MeasurementRepository extends JpaRepository<Measurement, Long>
     @Query("SELECT m FROM Measurement m WHERE m.tml.id = :tmlId ORDER BY m.measurementDate DESC")
     List<Measurement> findByTmlIdOrderByMeasurementDateDesc(@Param("tmlId") Long tmlId);
     
+    @Cacheable(CacheConfig.MEASUREMENT_DATES)
     @Query("SELECT DISTINCT m.measurementDate FROM Measurement m ORDER BY m.measurementDate")
     List<LocalDate> findDistinctMeasurementDates();
     
+    // Read-only views: constructor expressions bypass the persistence context entirely
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        ORDER BY m.id
+        """)
+    List<MeasurementView> findAllViews();
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE t.id = :tmlId
+        ORDER BY m.measurementDate DESC
+        """)
+    List<MeasurementView> findViewsByTmlId(@Param("tmlId") Long tmlId);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE m.measurementDate = :measurementDate
+        ORDER BY m.id
+        """)
+    List<MeasurementView> findViewsByMeasurementDate(@Param("measurementDate") LocalDate measurementDate);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE m.id > :afterId
+        ORDER BY m.id
+        """)
+    List<MeasurementView> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE m.measurementDate > :afterDate OR (m.measurementDate = :afterDate AND m.id > :afterId)
+        ORDER BY m.measurementDate, m.id
+        """)
+    List<MeasurementView> findPageAfterDateAndId(@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE m.measurementDate = :measurementDate AND m.id > :afterId
+        ORDER BY m.id
+        """)
+    List<MeasurementView> findPageByMeasurementDateAfterId(@Param("measurementDate") LocalDate measurementDate, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        ORDER BY m.id
+        """)
+    Stream<MeasurementView> streamAll();
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.MeasurementView(
+            m.id, t.id, t.circuitId, t.tmlId, m.measurementDate, m.thickness, m.temperature, m.corrosionRate)
+        FROM Measurement m JOIN m.tml t
+        WHERE m.measurementDate = :measurementDate
+        ORDER BY m.id
+        """)
+    Stream<MeasurementView> streamByMeasurementDate(@Param("measurementDate") LocalDate measurementDate);
+    
+    // Native queries quote their aliases: PostgreSQL folds unquoted aliases to lower case
+    
     @Query(value = """
-        SELECT 
-            start.tml_record_id as tmlRecordId,
-            tml.circuit_id as circuitId,
-            tml.tml_id as tmlId,
-            start.corrosion_rate as startRate,
-            finish.corrosion_rate as endRate,
-            CASE 
-                WHEN finish.corrosion_rate < 10 THEN '< 10 mpy'
-                WHEN finish.corrosion_rate >= 10 AND finish.corrosion_rate < 20 THEN '10-20 mpy'
-                WHEN finish.corrosion_rate >= 20 AND finish.corrosion_rate < 30 THEN '20-30 mpy'
-                WHEN finish.corrosion_rate >= 30 AND finish.corrosion_rate < 50 THEN '30-50 mpy'
-                ELSE '> 50 mpy'
-            END as endCategory
-        FROM measurements start
-        JOIN measurements finish ON start.tml_record_id = finish.tml_record_id
-        JOIN tmls tml ON start.tml_record_id = tml.id
-        WHERE start.measurement_date = :startDate
-        AND finish.measurement_date = :endDate
-        AND start.corrosion_rate <= :maxCorrosionRate
+        SELECT DISTINCT ON (m.tml_record_id)
+            m.tml_record_id as "tmlRecordId",
+            tml.circuit_id as "circuitId",
+            tml.tml_id as "tmlId",
+            m.id as "measurementId",
+            m.measurement_date as "measurementDate",
+            m.thickness as "thickness",
+            m.temperature as "temperature",
+            m.corrosion_rate as "corrosionRate"
+        FROM measurements m
+        JOIN tmls tml ON m.tml_record_id = tml.id
+        ORDER BY m.tml_record_id, m.measurement_date DESC, m.id DESC
         """, nativeQuery = true)
-    List<Map<String, Object>> findTemporalTracking(
+    List<LatestMeasurementProjection> findLatestPerTml();
+    
+    @Query(value = """
+        SELECT DISTINCT ON (m.tml_record_id)
+            m.tml_record_id as "tmlRecordId",
+            tml.circuit_id as "circuitId",
+            tml.tml_id as "tmlId",
+            m.id as "measurementId",
+            m.measurement_date as "measurementDate",
+            m.thickness as "thickness",
+            m.temperature as "temperature",
+            m.corrosion_rate as "corrosionRate"
+        FROM measurements m
+        JOIN tmls tml ON m.tml_record_id = tml.id
+        WHERE m.tml_record_id IN :tmlRecordIds
+        ORDER BY m.tml_record_id, m.measurement_date DESC, m.id DESC
+        """, nativeQuery = true)
+    List<LatestMeasurementProjection> findLatestForTmls(@Param("tmlRecordIds") Collection<Long> tmlRecordIds);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TemporalTrackingRow(
+            t.id, t.circuitId, t.tmlId, s.corrosionRate, f.corrosionRate)
+        FROM Measurement s JOIN s.tml t, Measurement f
+        WHERE f.tml = s.tml
+        AND s.measurementDate = :startDate
+        AND f.measurementDate = :endDate
+        AND s.corrosionRate <= :maxCorrosionRate
+        """)
+    List<TemporalTrackingRow> findTemporalTracking(
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate,
         @Param("maxCorrosionRate") Double maxCorrosionRate
     );
     
+    // Every pairing findTemporalTracking can return for the two dates, before the threshold is applied
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TemporalTrackingRow(
+            t.id, t.circuitId, t.tmlId, s.corrosionRate, f.corrosionRate)
+        FROM Measurement s JOIN s.tml t, Measurement f
+        WHERE f.tml = s.tml
+        AND s.measurementDate = :startDate
+        AND f.measurementDate = :endDate
+        AND s.corrosionRate IS NOT NULL
+        """)
+    List<TemporalTrackingRow> findTransitions(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
     @Query(value = """
         SELECT 
-            start.tml_record_id as tmlRecordId,
-            tml.circuit_id as circuitId,
-            tml.tml_id as tmlId,
-            start.corrosion_rate as startCorrosionRate,
-            finish.corrosion_rate as endCorrosionRate,
-            CASE 
-                WHEN finish.corrosion_rate < 10 THEN '< 10 mpy'
-                WHEN finish.corrosion_rate >= 10 AND finish.corrosion_rate < 20 THEN '10-20 mpy'
-                WHEN finish.corrosion_rate >= 20 AND finish.corrosion_rate < 30 THEN '20-30 mpy'
-                WHEN finish.corrosion_rate >= 30 AND finish.corrosion_rate < 50 THEN '30-50 mpy'
-                ELSE '> 50 mpy'
-            END as endCategory
-        FROM measurements start
-        JOIN measurements finish ON start.tml_record_id = finish.tml_record_id
-        JOIN tmls tml ON start.tml_record_id = tml.id
-        WHERE start.measurement_date = :startDate
-        AND finish.measurement_date = :endDate
-        AND tml.tml_id IN :tmlIds
+            tml.id as "tmlRecordId",
+            tml.circuit_id as "circuitId",
+            tml.tml_id as "tmlId",
+            start.corrosion_rate as "startRate",
+            finish.corrosion_rate as "endRate",
+            start.measurement_date as "startMeasurementDate",
+            finish.measurement_date as "endMeasurementDate"
+        FROM tmls tml
+        JOIN LATERAL (
+            SELECT m.corrosion_rate, m.measurement_date
+            FROM measurements m
+            WHERE m.tml_record_id = tml.id
+            AND m.measurement_date <= :startDate
+            AND m.measurement_date >= :startFloor
+            ORDER BY m.measurement_date DESC, m.id DESC
+            LIMIT 1
+        ) start ON true
+        JOIN LATERAL (
+            SELECT m.corrosion_rate, m.measurement_date
+            FROM measurements m
+            WHERE m.tml_record_id = tml.id
+            AND m.measurement_date <= :endDate
+            AND m.measurement_date >= :endFloor
+            AND m.measurement_date > start.measurement_date
+            ORDER BY m.measurement_date DESC, m.id DESC
+            LIMIT 1
+        ) finish ON true
+        WHERE start.corrosion_rate <= :maxCorrosionRate
         """, nativeQuery = true)
-    List<Map<String, Object>> findTemporalTrackingForSpecificTmls(
+    List<AsOfTrackingProjection> findTemporalTrackingAsOf(
+        @Param("startDate") LocalDate startDate,
+        @Param("startFloor") LocalDate startFloor,
+        @Param("endDate") LocalDate endDate,
+        @Param("endFloor") LocalDate endFloor,
+        @Param("maxCorrosionRate") Double maxCorrosionRate
+    );
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.SpecificTmlTrackingRow(
+            t.id, t.circuitId, t.tmlId, s.corrosionRate, f.corrosionRate)
+        FROM Measurement s JOIN s.tml t, Measurement f
+        WHERE f.tml = s.tml
+        AND s.measurementDate = :startDate
+        AND f.measurementDate = :endDate
+        AND t.tmlId IN :tmlIds
+        """)
+    List<SpecificTmlTrackingRow> findTemporalTrackingForSpecificTmls(
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate,
         @Param("tmlIds") List<String> tmlIds
     );
-}
\ No newline at end of file
+}
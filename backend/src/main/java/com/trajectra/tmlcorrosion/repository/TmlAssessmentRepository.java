@@ -0,0 +1,53 @@
+package com.trajectra.tmlcorrosion.repository;
+
+import com.trajectra.tmlcorrosion.dto.TmlAssessmentView;
+import com.trajectra.tmlcorrosion.entity.TmlAssessment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TmlAssessmentRepository extends JpaRepository<TmlAssessment, Long> {
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TmlAssessmentView(
+            a.tmlRecordId, t.circuitId, t.tmlId, a.readingCount, a.firstDate, a.lastDate, a.currentThickness,
+            a.shortTermRate, a.longTermRate, a.remainingLifeYears, a.retirementDate, a.computedAt)
+        FROM TmlAssessment a, Tml t
+        WHERE t.id = a.tmlRecordId
+        ORDER BY a.remainingLifeYears ASC NULLS LAST, a.tmlRecordId
+        """)
+    List<TmlAssessmentView> findAllViews();
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TmlAssessmentView(
+            a.tmlRecordId, t.circuitId, t.tmlId, a.readingCount, a.firstDate, a.lastDate, a.currentThickness,
+            a.shortTermRate, a.longTermRate, a.remainingLifeYears, a.retirementDate, a.computedAt)
+        FROM TmlAssessment a, Tml t
+        WHERE t.id = a.tmlRecordId AND a.tmlRecordId = :tmlRecordId
+        """)
+    Optional<TmlAssessmentView> findViewByTmlRecordId(@Param("tmlRecordId") Long tmlRecordId);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TmlAssessmentView(
+            a.tmlRecordId, t.circuitId, t.tmlId, a.readingCount, a.firstDate, a.lastDate, a.currentThickness,
+            a.shortTermRate, a.longTermRate, a.remainingLifeYears, a.retirementDate, a.computedAt)
+        FROM TmlAssessment a, Tml t
+        WHERE t.id = a.tmlRecordId AND t.circuitId = :circuitId
+        ORDER BY a.remainingLifeYears ASC NULLS LAST, a.tmlRecordId
+        """)
+    List<TmlAssessmentView> findViewsByCircuitId(@Param("circuitId") String circuitId);
+    
+    @Query("""
+        SELECT new com.trajectra.tmlcorrosion.dto.TmlAssessmentView(
+            a.tmlRecordId, t.circuitId, t.tmlId, a.readingCount, a.firstDate, a.lastDate, a.currentThickness,
+            a.shortTermRate, a.longTermRate, a.remainingLifeYears, a.retirementDate, a.computedAt)
+        FROM TmlAssessment a, Tml t
+        WHERE t.id = a.tmlRecordId AND a.remainingLifeYears <= :maxYears
+        ORDER BY a.remainingLifeYears ASC, a.tmlRecordId
+        """)
+    List<TmlAssessmentView> findViewsWithRemainingLifeAtMost(@Param("maxYears") Double maxYears);
+}
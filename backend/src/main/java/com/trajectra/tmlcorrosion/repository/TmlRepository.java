@@ -1,7 +1,14 @@
 package com.trajectra.tmlcorrosion.repository;
 
+import com.trajectra.tmlcorrosion.config.CacheConfig;
+import com.trajectra.tmlcorrosion.dto.TmlSummary;
 import com.trajectra.tmlcorrosion.entity.Tml;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -9,4 +16,18 @@ import java.util.List;
 public interface TmlRepository extends JpaRepository<Tml, Long> {
     List<Tml> findByCircuitId(String circuitId);
     List<Tml> findByTmlId(String tmlId);
-}
\ No newline at end of file
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.TMLS_BY_CIRCUIT, allEntries = true)
+    <S extends Tml> S save(S tml);
+    
+    @Query("SELECT new com.trajectra.tmlcorrosion.dto.TmlSummary(t.id, t.circuitId, t.tmlId) FROM Tml t ORDER BY t.id")
+    List<TmlSummary> findAllSummaries();
+    
+    @Cacheable(CacheConfig.TMLS_BY_CIRCUIT)
+    @Query("SELECT new com.trajectra.tmlcorrosion.dto.TmlSummary(t.id, t.circuitId, t.tmlId) FROM Tml t WHERE t.circuitId = :circuitId ORDER BY t.id")
+    List<TmlSummary> findSummariesByCircuitId(@Param("circuitId") String circuitId);
+    
+    @Query("SELECT new com.trajectra.tmlcorrosion.dto.TmlSummary(t.id, t.circuitId, t.tmlId) FROM Tml t WHERE t.id > :afterId ORDER BY t.id")
+    List<TmlSummary> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+}
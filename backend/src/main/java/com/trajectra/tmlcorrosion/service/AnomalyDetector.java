@@ -0,0 +1,362 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.entity.MeasurementAlert;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streaming detector for implausible or accelerating readings. Each TML keeps O(1) rolling
+ * state in primitive arrays: last thickness, a Welford mean/variance of temperature and a ring
+ * buffer of its most recent corrosion rates. New readings are checked against that state and
+ * then folded in; flagged readings are written to {@code measurement_alerts}.
+ * <p>
+ * State is rebuilt from the full history in one ordered pass at startup, without raising
+ * alerts. Writes that land after a TML's latest reading are evaluated incrementally; backdated
+ * inserts, edits and deletes replay that TML's history and replace its alerts. Change events
+ * are processed in order on the detector's own thread, never on the writer's.
+ */
+@Service
+public class AnomalyDetector {
+    
+    private static final Logger log = LoggerFactory.getLogger(AnomalyDetector.class);
+    
+    private static final int FETCH_SIZE = 5000;
+    
+    private static final String SELECT_SQL =
+        "SELECT tml_record_id, id, measurement_date, thickness, temperature, corrosion_rate FROM measurements";
+    private static final String ORDER_SQL = " ORDER BY tml_record_id, measurement_date, id";
+    
+    private static final String INSERT_ALERT_SQL = """
+        INSERT INTO measurement_alerts (tml_record_id, measurement_id, measurement_date, alert_type, observed, expected, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (measurement_id, alert_type) DO NOTHING
+        """;
+    
+    private static final String DELETE_ALERTS_SQL = "DELETE FROM measurement_alerts WHERE tml_record_id = ANY(?)";
+    
+    private record Alert(long tmlRecordId, long measurementId, int day, MeasurementAlert.Type type, double observed, double expected) {}
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${tml.anomaly.acceleration-factor:1.5}")
+    private double accelerationFactor;
+    
+    @Value("${tml.anomaly.acceleration-min-delta:5.0}")
+    private double accelerationMinDelta;
+    
+    @Value("${tml.anomaly.thickness-tolerance:0.1}")
+    private double thicknessTolerance;
+    
+    @Value("${tml.anomaly.temperature-z:3.0}")
+    private double temperatureZ;
+    
+    @Value("${tml.anomaly.min-samples:5}")
+    private int minSamples;
+    
+    private final int window;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "anomaly-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Per-TML state, indexed by the slot LongIndexMap assigns; guarded by this
+    private LongIndexMap index;
+    private int[] lastDay;
+    private long[] lastMeasurementId;
+    private double[] lastThickness;
+    private int[] temperatureCount;
+    private double[] temperatureMean;
+    private double[] temperatureM2;
+    private float[] recentRates;
+    private byte[] recentCount;
+    private byte[] recentNext;
+    
+    public AnomalyDetector(@Value("${tml.anomaly.window:4}") int window) {
+        this.window = Math.max(1, Math.min(window, Byte.MAX_VALUE));
+        reset(1024);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        reset(1024);
+        int[] readings = { 0 };
+        stream(SELECT_SQL + ORDER_SQL, null, null, rs -> {
+            observe(rs, null);
+            readings[0]++;
+        });
+        log.info("Anomaly detector state rebuilt for {} TMLs from {} readings in {} ms",
+            index.size(), readings[0], (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @EventListener
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        if (event.measurementDates().isEmpty()) {
+            return;
+        }
+        // Events are published after commit; a single thread keeps them in order
+        worker.execute(() -> process(event));
+    }
+    
+    synchronized void process(MeasurementsChangedEvent event) {
+        // Decided per TML: a backdated reading on one TML must not force a replay of the others
+        LocalDate earliest = null;
+        List<Long> incremental = new ArrayList<>();
+        List<Long> replay = new ArrayList<>();
+        for (Long tmlRecordId : event.tmlRecordIds()) {
+            LocalDate since = event.earliestDate(tmlRecordId);
+            int slot = index.get(tmlRecordId);
+            if (slot < 0 || lastDay[slot] < since.toEpochDay()) {
+                incremental.add(tmlRecordId);
+                earliest = earliest == null || since.isBefore(earliest) ? since : earliest;
+            } else {
+                replay.add(tmlRecordId);
+            }
+        }
+        
+        try {
+            List<Alert> alerts = new ArrayList<>();
+            if (!incremental.isEmpty()) {
+                stream(SELECT_SQL + " WHERE tml_record_id = ANY(?) AND measurement_date >= ?" + ORDER_SQL,
+                    incremental, earliest, rs -> observe(rs, alerts));
+            }
+            saveAlerts(alerts);
+            if (!replay.isEmpty()) {
+                replay(replay);
+            }
+        } catch (RuntimeException e) {
+            // The write itself has committed; the next replay of these TMLs re-derives their state
+            log.warn("Anomaly detection for TMLs {} failed: {}", event.tmlRecordIds(), e.getMessage());
+        }
+    }
+    
+    private void replay(List<Long> tmlRecordIds) {
+        // Edited or backdated readings change everything after them; re-derive these TMLs' alerts
+        for (Long tmlRecordId : tmlRecordIds) {
+            clear(index.get(tmlRecordId));
+        }
+        List<Alert> alerts = new ArrayList<>();
+        stream(SELECT_SQL + " WHERE tml_record_id = ANY(?)" + ORDER_SQL, tmlRecordIds, null, rs -> observe(rs, alerts));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(DELETE_ALERTS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", tmlRecordIds.toArray()));
+                return ps;
+            });
+            insertAlerts(alerts);
+        });
+    }
+    
+    private void observe(ResultSet rs, List<Alert> alerts) throws SQLException {
+        long tmlRecordId = rs.getLong(1);
+        long measurementId = rs.getLong(2);
+        int day = (int) rs.getObject(3, LocalDate.class).toEpochDay();
+        double thickness = nullableDouble(rs, 4);
+        double temperature = nullableDouble(rs, 5);
+        double rate = nullableDouble(rs, 6);
+        
+        int slot = slotFor(tmlRecordId);
+        if (day < lastDay[slot] || (day == lastDay[slot] && measurementId <= lastMeasurementId[slot])) {
+            // Already folded in
+            return;
+        }
+        if (alerts != null) {
+            evaluate(slot, tmlRecordId, measurementId, day, thickness, temperature, rate, alerts);
+        }
+        
+        lastDay[slot] = day;
+        lastMeasurementId[slot] = measurementId;
+        if (!Double.isNaN(thickness)) {
+            lastThickness[slot] = thickness;
+        }
+        if (!Double.isNaN(temperature)) {
+            // Welford's online update
+            int count = ++temperatureCount[slot];
+            double delta = temperature - temperatureMean[slot];
+            temperatureMean[slot] += delta / count;
+            temperatureM2[slot] += delta * (temperature - temperatureMean[slot]);
+        }
+        if (!Double.isNaN(rate)) {
+            recentRates[slot * window + recentNext[slot]] = (float) rate;
+            recentNext[slot] = (byte) ((recentNext[slot] + 1) % window);
+            if (recentCount[slot] < window) {
+                recentCount[slot]++;
+            }
+        }
+    }
+    
+    private void evaluate(int slot, long tmlRecordId, long measurementId, int day, double thickness, double temperature,
+                          double rate, List<Alert> alerts) {
+        // Wall loss is irreversible; a thicker reading points at a bad gauge or the wrong location
+        if (!Double.isNaN(thickness) && !Double.isNaN(lastThickness[slot])
+                && thickness - lastThickness[slot] > thicknessTolerance) {
+            alerts.add(new Alert(tmlRecordId, measurementId, day, MeasurementAlert.Type.THICKNESS_INCREASE,
+                thickness, lastThickness[slot]));
+        }
+        
+        int count = temperatureCount[slot];
+        if (!Double.isNaN(temperature) && count >= minSamples) {
+            double std = Math.sqrt(temperatureM2[slot] / (count - 1));
+            if (std > 0 && Math.abs(temperature - temperatureMean[slot]) > temperatureZ * std) {
+                alerts.add(new Alert(tmlRecordId, measurementId, day, MeasurementAlert.Type.TEMPERATURE_OUTLIER,
+                    temperature, temperatureMean[slot]));
+            }
+        }
+        
+        int recent = recentCount[slot];
+        if (!Double.isNaN(rate) && recent >= 2) {
+            double baseline = 0;
+            for (int i = 0; i < recent; i++) {
+                baseline += recentRates[slot * window + i];
+            }
+            baseline /= recent;
+            if (rate >= baseline * accelerationFactor && rate - baseline >= accelerationMinDelta) {
+                alerts.add(new Alert(tmlRecordId, measurementId, day, MeasurementAlert.Type.RATE_ACCELERATION, rate, baseline));
+            }
+        }
+    }
+    
+    private void saveAlerts(List<Alert> alerts) {
+        insertAlerts(alerts);
+        // Only newly raised alerts are counted, not ones re-derived by a replay
+        for (Alert alert : alerts) {
+            meterRegistry.counter("tml.anomaly.alerts", "type", alert.type().name()).increment();
+        }
+    }
+    
+    private void insertAlerts(List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ALERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Alert alert = alerts.get(i);
+                ps.setLong(1, alert.tmlRecordId());
+                ps.setLong(2, alert.measurementId());
+                ps.setDate(3, Date.valueOf(LocalDate.ofEpochDay(alert.day())));
+                ps.setString(4, alert.type().name());
+                ps.setDouble(5, alert.observed());
+                ps.setDouble(6, alert.expected());
+                ps.setTimestamp(7, createdAt);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return alerts.size();
+            }
+        });
+    }
+    
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+    
+    private void stream(String sql, List<Long> tmlRecordIds, LocalDate since, RowHandler handler) {
+        // Cursor-based fetching needs a transaction on PostgreSQL
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            if (tmlRecordIds != null) {
+                ps.setArray(1, con.createArrayOf("bigint", tmlRecordIds.toArray()));
+            }
+            if (since != null) {
+                ps.setObject(2, since, Types.DATE);
+            }
+            return ps;
+        }, rs -> {
+            handler.handle(rs);
+        }));
+    }
+    
+    private int slotFor(long tmlRecordId) {
+        int known = index.size();
+        int slot = index.getOrAdd(tmlRecordId);
+        if (slot >= lastDay.length) {
+            grow(lastDay.length * 2);
+        }
+        if (index.size() > known) {
+            clear(slot);
+        }
+        return slot;
+    }
+    
+    private void clear(int slot) {
+        lastDay[slot] = Integer.MIN_VALUE;
+        lastMeasurementId[slot] = Long.MIN_VALUE;
+        lastThickness[slot] = Double.NaN;
+        temperatureCount[slot] = 0;
+        temperatureMean[slot] = 0;
+        temperatureM2[slot] = 0;
+        recentCount[slot] = 0;
+        recentNext[slot] = 0;
+    }
+    
+    private void reset(int capacity) {
+        index = new LongIndexMap(capacity);
+        lastDay = new int[capacity];
+        lastMeasurementId = new long[capacity];
+        lastThickness = new double[capacity];
+        temperatureCount = new int[capacity];
+        temperatureMean = new double[capacity];
+        temperatureM2 = new double[capacity];
+        recentRates = new float[capacity * window];
+        recentCount = new byte[capacity];
+        recentNext = new byte[capacity];
+    }
+    
+    private void grow(int capacity) {
+        lastDay = Arrays.copyOf(lastDay, capacity);
+        lastMeasurementId = Arrays.copyOf(lastMeasurementId, capacity);
+        lastThickness = Arrays.copyOf(lastThickness, capacity);
+        temperatureCount = Arrays.copyOf(temperatureCount, capacity);
+        temperatureMean = Arrays.copyOf(temperatureMean, capacity);
+        temperatureM2 = Arrays.copyOf(temperatureM2, capacity);
+        recentRates = Arrays.copyOf(recentRates, capacity * window);
+        recentCount = Arrays.copyOf(recentCount, capacity);
+        recentNext = Arrays.copyOf(recentNext, capacity);
+    }
+    
+    private static double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+}
@@ -0,0 +1,421 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.config.CacheConfig;
+import com.trajectra.tmlcorrosion.dto.BatchReport;
+import com.trajectra.tmlcorrosion.dto.MeasurementUpsert;
+import com.trajectra.tmlcorrosion.dto.TmlUpsert;
+import com.trajectra.tmlcorrosion.entity.Tml;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set-based batch writes for TMLs and measurements. Each batch reads the rows it touches with a
+ * few array-bound queries, classifies every item (create, update, not found, conflict), applies
+ * the accepted ones with batched JDBC statements in one transaction and publishes a single
+ * change event after commit.
+ * <p>
+ * Items are matched by id when given and otherwise by natural key ((circuit, TML id) for TMLs,
+ * (TML, date) for measurements). A natural key that another row already holds, or that appears
+ * twice in the batch, is reported as a conflict instead of being overwritten.
+ * <p>
+ * Concurrent writers: measurement batches lock their TMLs and the measurements they update before
+ * classifying, so a competing batch on the same TMLs waits for the first to commit. TML natural
+ * keys are unique in the schema; a batch that loses an insert race is classified again.
+ */
+@Service
+public class BatchWriteService {
+    
+    private static final String INSERT_MEASUREMENT_SQL = """
+        INSERT INTO measurements (id, tml_record_id, measurement_date, thickness, temperature, corrosion_rate)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String UPDATE_MEASUREMENT_SQL = """
+        UPDATE measurements SET tml_record_id = ?, measurement_date = ?, thickness = ?, temperature = ?, corrosion_rate = ?
+        WHERE id = ?
+        """;
+    private static final String INSERT_TML_SQL = "INSERT INTO tmls (id, circuit_id, tml_id) VALUES (?, ?, ?)";
+    private static final String UPDATE_TML_SQL = "UPDATE tmls SET circuit_id = ?, tml_id = ? WHERE id = ?";
+    
+    private record MeasurementKey(long tmlRecordId, LocalDate measurementDate) {}
+    
+    private record TmlKey(String circuitId, String tmlId) {}
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    public BatchReport upsertMeasurements(List<MeasurementUpsert> items) {
+        long started = System.nanoTime();
+        BatchReport.Item[] results = new BatchReport.Item[items.size()];
+        MeasurementsChangedEvent.Builder changes = new MeasurementsChangedEvent.Builder();
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Set<Long> tmlRecordIds = new HashSet<>();
+            Set<LocalDate> dates = new HashSet<>();
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < items.size(); i++) {
+                MeasurementUpsert item = items.get(i);
+                if (item.tmlRecordId() == null || item.measurementDate() == null) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.INVALID,
+                        "tmlRecordId and measurementDate are required");
+                    continue;
+                }
+                tmlRecordIds.add(item.tmlRecordId());
+                dates.add(item.measurementDate());
+                if (item.id() != null) {
+                    ids.add(item.id());
+                }
+            }
+            
+            // Locking the TMLs (in id order) makes concurrent batches and inserts on the same TMLs wait
+            // for this one, so the natural-key lookup below cannot miss a row another writer is adding
+            Set<Long> knownTmls = new HashSet<>(queryIds("SELECT id FROM tmls WHERE id = ANY(?) ORDER BY id FOR UPDATE", tmlRecordIds));
+            Map<Long, MeasurementKey> existingById = new HashMap<>();
+            queryKeys("SELECT id, tml_record_id, measurement_date FROM measurements WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+                ids, null, (id, key) -> existingById.put(id, key));
+            Map<MeasurementKey, List<Long>> idsByKey = new HashMap<>();
+            queryKeys("SELECT id, tml_record_id, measurement_date FROM measurements WHERE tml_record_id = ANY(?) AND measurement_date = ANY(?)",
+                tmlRecordIds, dates, (id, key) -> idsByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(id));
+            
+            List<Integer> inserts = new ArrayList<>();
+            Map<Integer, Long> updates = new LinkedHashMap<>();
+            Set<MeasurementKey> claimed = new HashSet<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                MeasurementUpsert item = items.get(i);
+                MeasurementKey key = new MeasurementKey(item.tmlRecordId(), item.measurementDate());
+                List<Long> holders = idsByKey.getOrDefault(key, List.of());
+                if (!knownTmls.contains(item.tmlRecordId())) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.NOT_FOUND, "unknown TML " + item.tmlRecordId());
+                } else if (item.id() != null && !existingById.containsKey(item.id())) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.NOT_FOUND, null);
+                } else if (!claimed.add(key)) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.CONFLICT,
+                        "TML " + key.tmlRecordId() + " on " + key.measurementDate() + " appears more than once in the batch");
+                } else if (item.id() != null) {
+                    Optional<Long> other = holders.stream().filter(id -> !id.equals(item.id())).findFirst();
+                    if (other.isPresent()) {
+                        results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.CONFLICT,
+                            "TML " + key.tmlRecordId() + " already has measurement " + other.get() + " on " + key.measurementDate());
+                    } else {
+                        updates.put(i, item.id());
+                    }
+                } else if (holders.size() > 1) {
+                    results[i] = new BatchReport.Item(i, null, BatchReport.Status.CONFLICT,
+                        "TML " + key.tmlRecordId() + " has " + holders.size() + " measurements on " + key.measurementDate() + "; pass an id");
+                } else if (holders.size() == 1) {
+                    updates.put(i, holders.get(0));
+                } else {
+                    inserts.add(i);
+                }
+            }
+            
+            List<Long> newIds = idAllocator.nextIds("measurements_id_seq", inserts.size());
+            List<Object[]> insertArgs = new ArrayList<>(inserts.size());
+            for (int n = 0; n < inserts.size(); n++) {
+                int i = inserts.get(n);
+                MeasurementUpsert item = items.get(i);
+                insertArgs.add(new Object[] { newIds.get(n), item.tmlRecordId(), Date.valueOf(item.measurementDate()),
+                    item.thickness(), item.temperature(), item.corrosionRate() });
+                results[i] = new BatchReport.Item(i, newIds.get(n), BatchReport.Status.CREATED, null);
+            }
+            List<Object[]> updateArgs = new ArrayList<>(updates.size());
+            for (Map.Entry<Integer, Long> entry : updates.entrySet()) {
+                MeasurementUpsert item = items.get(entry.getKey());
+                updateArgs.add(new Object[] { item.tmlRecordId(), Date.valueOf(item.measurementDate()),
+                    item.thickness(), item.temperature(), item.corrosionRate(), entry.getValue() });
+            }
+            for (int i : inserts) {
+                changes.touch(items.get(i).tmlRecordId(), items.get(i).measurementDate());
+            }
+            
+            batchUpdate(INSERT_MEASUREMENT_SQL, insertArgs,
+                Types.BIGINT, Types.BIGINT, Types.DATE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE);
+            int[] counts = batchUpdate(UPDATE_MEASUREMENT_SQL, updateArgs,
+                Types.BIGINT, Types.DATE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.BIGINT);
+            int n = 0;
+            for (Map.Entry<Integer, Long> entry : updates.entrySet()) {
+                int i = entry.getKey();
+                long id = entry.getValue();
+                if (counts[n++] == 0) {
+                    results[i] = new BatchReport.Item(i, id, BatchReport.Status.CONFLICT, "measurement " + id + " was removed concurrently");
+                    continue;
+                }
+                results[i] = new BatchReport.Item(i, id, BatchReport.Status.UPDATED, null);
+                MeasurementKey previous = existingById.get(id);
+                if (previous != null) {
+                    changes.touch(previous.tmlRecordId(), previous.measurementDate());
+                }
+                changes.touch(items.get(i).tmlRecordId(), items.get(i).measurementDate());
+            }
+        });
+        
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(changes.build());
+        }
+        return BatchReport.of(Arrays.asList(results), elapsedMillis(started));
+    }
+    
+    public BatchReport deleteMeasurements(List<Long> ids) {
+        long started = System.nanoTime();
+        MeasurementsChangedEvent.Builder changes = new MeasurementsChangedEvent.Builder();
+        Set<Long> deleted = new HashSet<>();
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryKeys(
+            "DELETE FROM measurements WHERE id = ANY(?) RETURNING id, tml_record_id, measurement_date",
+            nonNull(ids), null, (id, key) -> {
+                deleted.add(id);
+                changes.touch(key.tmlRecordId(), key.measurementDate());
+            }));
+        
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(changes.build());
+        }
+        return BatchReport.of(deleteResults(ids, deleted), elapsedMillis(started));
+    }
+    
+    public BatchReport upsertTmls(List<TmlUpsert> items) {
+        long started = System.nanoTime();
+        BatchReport.Item[] results = new BatchReport.Item[items.size()];
+        Set<Long> updatedTmls = new HashSet<>();
+        try {
+            writeTmls(items, results, updatedTmls);
+        } catch (DuplicateKeyException e) {
+            // Another batch committed one of the same natural keys first; classify again against it
+            Arrays.fill(results, null);
+            updatedTmls.clear();
+            writeTmls(items, results, updatedTmls);
+        }
+        
+        BatchReport report = BatchReport.of(Arrays.asList(results), elapsedMillis(started));
+        if (report.created() > 0 || !updatedTmls.isEmpty()) {
+            tmlsChanged();
+        }
+        if (!updatedTmls.isEmpty()) {
+            // Read models carry circuit and TML labels alongside the readings
+            eventPublisher.publishEvent(new MeasurementsChangedEvent(updatedTmls, Set.of()));
+        }
+        return report;
+    }
+    
+    private void writeTmls(List<TmlUpsert> items, BatchReport.Item[] results, Set<Long> updatedTmls) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Set<Long> ids = new HashSet<>();
+            Set<String> circuitIds = new HashSet<>();
+            for (int i = 0; i < items.size(); i++) {
+                TmlUpsert item = items.get(i);
+                if (item.circuitId() == null || item.circuitId().isBlank() || item.tmlId() == null || item.tmlId().isBlank()) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.INVALID, "circuitId and tmlId are required");
+                    continue;
+                }
+                circuitIds.add(item.circuitId());
+                if (item.id() != null) {
+                    ids.add(item.id());
+                }
+            }
+            
+            Set<Long> existing = new HashSet<>(queryIds("SELECT id FROM tmls WHERE id = ANY(?) ORDER BY id FOR UPDATE", ids));
+            Map<TmlKey, List<Long>> idsByKey = new HashMap<>();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT id, circuit_id, tml_id FROM tmls WHERE circuit_id = ANY(?)");
+                ps.setArray(1, con.createArrayOf("varchar", circuitIds.toArray()));
+                return ps;
+            }, rs -> {
+                idsByKey.computeIfAbsent(new TmlKey(rs.getString(2), rs.getString(3)), k -> new ArrayList<>(1)).add(rs.getLong(1));
+            });
+            
+            List<Integer> inserts = new ArrayList<>();
+            Map<Integer, Long> updates = new LinkedHashMap<>();
+            Set<TmlKey> claimed = new HashSet<>();
+            for (int i = 0; i < items.size(); i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                TmlUpsert item = items.get(i);
+                TmlKey key = new TmlKey(item.circuitId(), item.tmlId());
+                List<Long> holders = idsByKey.getOrDefault(key, List.of());
+                if (item.id() != null && !existing.contains(item.id())) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.NOT_FOUND, null);
+                } else if (!claimed.add(key)) {
+                    results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.CONFLICT,
+                        key.circuitId() + "/" + key.tmlId() + " appears more than once in the batch");
+                } else if (item.id() != null) {
+                    Optional<Long> other = holders.stream().filter(id -> !id.equals(item.id())).findFirst();
+                    if (other.isPresent()) {
+                        results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.CONFLICT,
+                            key.circuitId() + "/" + key.tmlId() + " is already TML " + other.get());
+                    } else if (holders.contains(item.id())) {
+                        results[i] = new BatchReport.Item(i, item.id(), BatchReport.Status.UNCHANGED, null);
+                    } else {
+                        updates.put(i, item.id());
+                    }
+                } else if (holders.size() > 1) {
+                    results[i] = new BatchReport.Item(i, null, BatchReport.Status.CONFLICT,
+                        key.circuitId() + "/" + key.tmlId() + " matches " + holders.size() + " TMLs; pass an id");
+                } else if (holders.size() == 1) {
+                    // TMLs carry nothing but their natural key, so matching it leaves the row as it is
+                    results[i] = new BatchReport.Item(i, holders.get(0), BatchReport.Status.UNCHANGED, null);
+                } else {
+                    inserts.add(i);
+                }
+            }
+            
+            List<Long> newIds = idAllocator.nextIds("tmls_id_seq", inserts.size());
+            List<Object[]> insertArgs = new ArrayList<>(inserts.size());
+            for (int n = 0; n < inserts.size(); n++) {
+                int i = inserts.get(n);
+                insertArgs.add(new Object[] { newIds.get(n), items.get(i).circuitId(), items.get(i).tmlId() });
+                results[i] = new BatchReport.Item(i, newIds.get(n), BatchReport.Status.CREATED, null);
+            }
+            List<Object[]> updateArgs = new ArrayList<>(updates.size());
+            for (Map.Entry<Integer, Long> entry : updates.entrySet()) {
+                int i = entry.getKey();
+                updateArgs.add(new Object[] { items.get(i).circuitId(), items.get(i).tmlId(), entry.getValue() });
+            }
+            batchUpdate(INSERT_TML_SQL, insertArgs, Types.BIGINT, Types.VARCHAR, Types.VARCHAR);
+            int[] counts = batchUpdate(UPDATE_TML_SQL, updateArgs, Types.VARCHAR, Types.VARCHAR, Types.BIGINT);
+            int n = 0;
+            for (Map.Entry<Integer, Long> entry : updates.entrySet()) {
+                int i = entry.getKey();
+                long id = entry.getValue();
+                if (counts[n++] == 0) {
+                    results[i] = new BatchReport.Item(i, id, BatchReport.Status.CONFLICT, "TML " + id + " was removed concurrently");
+                } else {
+                    results[i] = new BatchReport.Item(i, id, BatchReport.Status.UPDATED, null);
+                    updatedTmls.add(id);
+                }
+            }
+        });
+    }
+    
+    /** Deletes TMLs with one set-based delete of their measurements instead of cascading entity by entity. */
+    public BatchReport deleteTmls(List<Long> ids) {
+        long started = System.nanoTime();
+        Set<Long> uniqueIds = nonNull(ids);
+        Set<LocalDate> touchedDates = new HashSet<>();
+        Set<Long> deleted = new HashSet<>();
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryKeys("DELETE FROM measurements WHERE tml_record_id = ANY(?) RETURNING id, tml_record_id, measurement_date",
+                uniqueIds, null, (id, key) -> touchedDates.add(key.measurementDate()));
+            deleted.addAll(queryIds("DELETE FROM tmls WHERE id = ANY(?) RETURNING id", uniqueIds));
+        });
+        
+        if (!deleted.isEmpty()) {
+            tmlsChanged();
+            eventPublisher.publishEvent(new MeasurementsChangedEvent(deleted, touchedDates));
+        }
+        return BatchReport.of(deleteResults(ids, deleted), elapsedMillis(started));
+    }
+    
+    private void tmlsChanged() {
+        // JDBC writes bypass Hibernate, so drop the second-level cache entries it may hold
+        entityManagerFactory.getCache().evict(Tml.class);
+        Cache tmlsByCircuit = cacheManager.getCache(CacheConfig.TMLS_BY_CIRCUIT);
+        if (tmlsByCircuit != null) {
+            tmlsByCircuit.clear();
+        }
+        dataVersion.bump();
+    }
+    
+    private int[] batchUpdate(String sql, List<Object[]> args, int... types) {
+        return args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, args, types);
+    }
+    
+    private interface KeyHandler {
+        void accept(long id, MeasurementKey key);
+    }
+    
+    private List<Long> queryIds(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, longArray(con, ids));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+    
+    private void queryKeys(String sql, Collection<Long> ids, Collection<LocalDate> dates, KeyHandler handler) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, longArray(con, ids));
+            if (dates != null) {
+                ps.setArray(2, con.createArrayOf("date", dates.stream().map(Date::valueOf).toArray()));
+            }
+            return ps;
+        }, rs -> {
+            handler.accept(rs.getLong(1), new MeasurementKey(rs.getLong(2), rs.getObject(3, LocalDate.class)));
+        });
+    }
+    
+    private static Set<Long> nonNull(List<Long> ids) {
+        Set<Long> result = new HashSet<>(ids);
+        result.remove(null);
+        return result;
+    }
+    
+    private static Array longArray(Connection con, Collection<Long> ids) throws SQLException {
+        return con.createArrayOf("bigint", ids.toArray());
+    }
+    
+    private static List<BatchReport.Item> deleteResults(List<Long> ids, Set<Long> deleted) {
+        List<BatchReport.Item> items = new ArrayList<>(ids.size());
+        Set<Long> reported = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                items.add(new BatchReport.Item(i, null, BatchReport.Status.INVALID, "id is required"));
+            } else if (!deleted.contains(id) || !reported.add(id)) {
+                items.add(new BatchReport.Item(i, id, BatchReport.Status.NOT_FOUND, null));
+            } else {
+                items.add(new BatchReport.Item(i, id, BatchReport.Status.DELETED, null));
+            }
+        }
+        return items;
+    }
+    
+    private static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
@@ -0,0 +1,290 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.tdunning.math.stats.Centroid;
+import com.tdunning.math.stats.MergingDigest;
+import com.trajectra.tmlcorrosion.dto.CircuitRollup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Per (circuit, inspection date) summaries: a t-digest of corrosion rates plus exact reading
+ * count, maximum rate, minimum thickness and number of TMLs above the rate threshold. Digests
+ * are kept as centroid arrays so any group of circuits can be merged on read without touching
+ * shared state.
+ * <p>
+ * Loaded in one ordered pass on first use. A write rebuilds only the cells of the circuits
+ * and dates it touched; a TML relabel, which can move readings between circuits, reloads
+ * everything.
+ */
+@Component
+public class CircuitRollupStore {
+    
+    private static final int FETCH_SIZE = 5000;
+    
+    private static final String SELECT_SQL = """
+        SELECT t.id, t.circuit_id, m.measurement_date, m.thickness, m.corrosion_rate
+        FROM measurements m
+        JOIN tmls t ON t.id = m.tml_record_id
+        """;
+    private static final String ORDER_SQL = " ORDER BY t.circuit_id, m.measurement_date";
+    
+    private record CellKey(String circuitId, LocalDate measurementDate) {}
+    
+    /** Immutable summary of one cell. */
+    private record Cell(long readings, double[] means, int[] weights, double maxRate, double minThickness,
+                        long tmlsOverThreshold) {}
+    
+    private static final Comparator<CellKey> CELL_ORDER =
+        Comparator.comparing(CellKey::circuitId).thenComparing(CellKey::measurementDate);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${tml.rollup.compression:100}")
+    private double compression;
+    
+    @Value("${tml.rollup.rate-threshold:20}")
+    private double rateThreshold;
+    
+    private volatile NavigableMap<CellKey, Cell> cells;
+    
+    // Circuit of every TML as of the last load, to find the cells a delete or relabel leaves behind
+    private final Map<Long, String> circuitByTml = new HashMap<>();
+    
+    /** One row per circuit and date in the range. */
+    public List<CircuitRollup> byCircuit(LocalDate from, LocalDate to) {
+        List<CircuitRollup> rollups = new ArrayList<>();
+        for (Map.Entry<CellKey, Cell> entry : loaded().entrySet()) {
+            CellKey key = entry.getKey();
+            if (!key.measurementDate().isBefore(from) && !key.measurementDate().isAfter(to)) {
+                rollups.add(summarize(key.circuitId(), key.measurementDate(), List.of(entry.getValue())));
+            }
+        }
+        return rollups;
+    }
+    
+    /** One row per date, merging the given circuits (all circuits when empty). */
+    public List<CircuitRollup> merged(Collection<String> circuitIds, LocalDate from, LocalDate to) {
+        NavigableMap<CellKey, Cell> current = loaded();
+        Map<LocalDate, List<Cell>> byDate = new TreeMap<>();
+        if (circuitIds == null || circuitIds.isEmpty()) {
+            for (Map.Entry<CellKey, Cell> entry : current.entrySet()) {
+                LocalDate date = entry.getKey().measurementDate();
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    byDate.computeIfAbsent(date, k -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+        } else {
+            for (String circuitId : new TreeSet<>(circuitIds)) {
+                for (Map.Entry<CellKey, Cell> entry : current.subMap(
+                        new CellKey(circuitId, from), true, new CellKey(circuitId, to), true).entrySet()) {
+                    byDate.computeIfAbsent(entry.getKey().measurementDate(), k -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+        }
+        
+        List<CircuitRollup> rollups = new ArrayList<>(byDate.size());
+        for (Map.Entry<LocalDate, List<Cell>> entry : byDate.entrySet()) {
+            rollups.add(summarize(null, entry.getKey(), entry.getValue()));
+        }
+        return rollups;
+    }
+    
+    public synchronized int rebuild() {
+        NavigableMap<CellKey, Cell> rebuilt = new ConcurrentSkipListMap<>(CELL_ORDER);
+        load(SELECT_SQL + ORDER_SQL, null, null, rebuilt);
+        circuitByTml.clear();
+        jdbcTemplate.query("SELECT id, circuit_id FROM tmls", rs -> {
+            circuitByTml.put(rs.getLong(1), rs.getString(2));
+        });
+        cells = rebuilt;
+        return rebuilt.size();
+    }
+    
+    @EventListener
+    @Order(DataVersion.READ_MODEL_ORDER)
+    public synchronized void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        NavigableMap<CellKey, Cell> current = cells;
+        if (current == null || event.tmlRecordIds().isEmpty()) {
+            // Not loaded yet; the first read will pick up the change
+            return;
+        }
+        if (event.measurementDates().isEmpty()) {
+            rebuild();
+            return;
+        }
+        
+        // Cells of the circuits the TMLs were in before the write and are in now
+        Set<String> circuitIds = new HashSet<>();
+        for (Long tmlRecordId : event.tmlRecordIds()) {
+            String previous = circuitByTml.remove(tmlRecordId);
+            if (previous != null) {
+                circuitIds.add(previous);
+            }
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, circuit_id FROM tmls WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", event.tmlRecordIds().toArray()));
+            return ps;
+        }, rs -> {
+            circuitByTml.put(rs.getLong(1), rs.getString(2));
+            circuitIds.add(rs.getString(2));
+        });
+        if (circuitIds.isEmpty()) {
+            return;
+        }
+        
+        NavigableMap<CellKey, Cell> refreshed = new TreeMap<>(CELL_ORDER);
+        load(SELECT_SQL + " WHERE t.circuit_id = ANY(?) AND m.measurement_date = ANY(?)" + ORDER_SQL,
+            circuitIds, event.measurementDates(), refreshed);
+        for (String circuitId : circuitIds) {
+            for (LocalDate date : event.measurementDates()) {
+                CellKey key = new CellKey(circuitId, date);
+                Cell cell = refreshed.get(key);
+                if (cell == null) {
+                    current.remove(key);
+                } else {
+                    current.put(key, cell);
+                }
+            }
+        }
+    }
+    
+    private NavigableMap<CellKey, Cell> loaded() {
+        NavigableMap<CellKey, Cell> current = cells;
+        if (current == null) {
+            synchronized (this) {
+                if (cells == null) {
+                    rebuild();
+                }
+                current = cells;
+            }
+        }
+        return current;
+    }
+    
+    private CircuitRollup summarize(String circuitId, LocalDate date, List<Cell> group) {
+        MergingDigest digest = new MergingDigest(compression);
+        long readings = 0;
+        long overThreshold = 0;
+        double maxRate = Double.NaN;
+        double minThickness = Double.NaN;
+        for (Cell cell : group) {
+            for (int i = 0; i < cell.means().length; i++) {
+                digest.add(cell.means()[i], cell.weights()[i]);
+            }
+            readings += cell.readings();
+            overThreshold += cell.tmlsOverThreshold();
+            maxRate = Double.isNaN(maxRate) ? cell.maxRate() : Math.max(maxRate, cell.maxRate());
+            minThickness = Double.isNaN(minThickness) ? cell.minThickness() : Math.min(minThickness, cell.minThickness());
+        }
+        boolean rated = digest.size() > 0;
+        return new CircuitRollup(circuitId, date, readings,
+            rated ? digest.quantile(0.5) : null,
+            rated ? digest.quantile(0.9) : null,
+            rated ? digest.quantile(0.99) : null,
+            nullIfNaN(maxRate), nullIfNaN(minThickness), overThreshold);
+    }
+    
+    /** Streams rows ordered by circuit and date, closing a cell at each boundary. */
+    private void load(String sql, Collection<String> circuitIds, Collection<LocalDate> dates, Map<CellKey, Cell> sink) {
+        CellBuilder builder = new CellBuilder();
+        // Cursor-based fetching needs a transaction on PostgreSQL
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            if (circuitIds != null) {
+                ps.setArray(1, con.createArrayOf("varchar", circuitIds.toArray()));
+                Array dateArray = con.createArrayOf("date", dates.stream().map(Date::valueOf).toArray());
+                ps.setArray(2, dateArray);
+            }
+            return ps;
+        }, rs -> {
+            CellKey key = new CellKey(rs.getString(2), rs.getObject(3, LocalDate.class));
+            if (builder.key != null && !builder.key.equals(key)) {
+                sink.put(builder.key, builder.build());
+            }
+            if (builder.key == null) {
+                builder.start(key);
+            }
+            double thickness = rs.getDouble(4);
+            boolean hasThickness = !rs.wasNull();
+            double rate = rs.getDouble(5);
+            builder.add(rs.getLong(1), hasThickness ? thickness : Double.NaN, rs.wasNull() ? Double.NaN : rate);
+        }));
+        if (builder.key != null) {
+            sink.put(builder.key, builder.build());
+        }
+    }
+    
+    /** Accumulates the cell being read; reset by {@link #build}. */
+    private final class CellBuilder {
+        
+        CellKey key;
+        MergingDigest digest;
+        long readings;
+        double maxRate;
+        double minThickness;
+        final Set<Long> tmlsOverThreshold = new HashSet<>();
+        
+        void start(CellKey key) {
+            this.key = key;
+            this.digest = new MergingDigest(compression);
+            this.readings = 0;
+            this.maxRate = Double.NaN;
+            this.minThickness = Double.NaN;
+            this.tmlsOverThreshold.clear();
+        }
+        
+        void add(long tmlRecordId, double thickness, double rate) {
+            readings++;
+            if (!Double.isNaN(thickness)) {
+                minThickness = Double.isNaN(minThickness) ? thickness : Math.min(minThickness, thickness);
+            }
+            if (!Double.isNaN(rate)) {
+                digest.add(rate);
+                maxRate = Double.isNaN(maxRate) ? rate : Math.max(maxRate, rate);
+                if (rate > rateThreshold) {
+                    tmlsOverThreshold.add(tmlRecordId);
+                }
+            }
+        }
+        
+        Cell build() {
+            digest.compress();
+            Collection<Centroid> centroids = digest.centroids();
+            double[] means = new double[centroids.size()];
+            int[] weights = new int[centroids.size()];
+            int i = 0;
+            for (Centroid centroid : centroids) {
+                means[i] = centroid.mean();
+                weights[i] = centroid.count();
+                i++;
+            }
+            Cell cell = new Cell(readings, means, weights, maxRate, minThickness, tmlsOverThreshold.size());
+            key = null;
+            return cell;
+        }
+    }
+    
+    private static Double nullIfNaN(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,171 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.entity.Classification;
+import com.trajectra.tmlcorrosion.repository.ClassificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import java.util.*;
+
+/**
+ * In-memory index of the classifications table. Each classification type is compiled into
+ * sorted primitive boundary arrays so a value is bucketed with a binary search instead of a
+ * scan over every row. The whole index is swapped atomically when classifications change.
+ * <p>
+ * Overlapping ranges keep the original semantics: the first matching row, in id order, wins.
+ * Such a type is compiled in that order and resolved with a linear scan.
+ */
+@Component
+public class ClassificationIndex {
+    
+    public static final String CORROSION_RATE = "corrosion_rate";
+    
+    @Autowired
+    private ClassificationRepository classificationRepository;
+    
+    private volatile Map<String, CompiledRanges> rangesByType;
+    
+    public CompiledRanges ranges(String classificationType) {
+        Map<String, CompiledRanges> current = rangesByType;
+        if (current == null) {
+            current = rebuild();
+        }
+        return current.getOrDefault(classificationType, CompiledRanges.EMPTY);
+    }
+    
+    public String classify(String classificationType, Double value) {
+        return value == null ? null : ranges(classificationType).label(value);
+    }
+    
+    public synchronized Map<String, CompiledRanges> rebuild() {
+        Map<String, List<Classification>> byType = new HashMap<>();
+        for (Classification classification : classificationRepository.findAll(Sort.by("id"))) {
+            byType.computeIfAbsent(classification.getClassificationType(), k -> new ArrayList<>()).add(classification);
+        }
+        
+        Map<String, CompiledRanges> compiled = new HashMap<>();
+        for (Map.Entry<String, List<Classification>> entry : byType.entrySet()) {
+            compiled.put(entry.getKey(), CompiledRanges.compile(entry.getValue()));
+        }
+        
+        rangesByType = Collections.unmodifiableMap(compiled);
+        return rangesByType;
+    }
+    
+    private static double lowerOf(Classification classification) {
+        return classification.getMinValue() == null ? Double.NEGATIVE_INFINITY : classification.getMinValue();
+    }
+    
+    private static double upperOf(Classification classification) {
+        return classification.getMaxValue() == null ? Double.POSITIVE_INFINITY : classification.getMaxValue();
+    }
+    
+    public static final class CompiledRanges {
+        
+        static final CompiledRanges EMPTY = new CompiledRanges(new double[0], new double[0], new String[0], true);
+        
+        private final double[] lower;
+        private final double[] upper;
+        private final String[] labels;
+        private final boolean disjoint;
+        
+        private CompiledRanges(double[] lower, double[] upper, String[] labels, boolean disjoint) {
+            this.lower = lower;
+            this.upper = upper;
+            this.labels = labels;
+            this.disjoint = disjoint;
+        }
+        
+        public static CompiledRanges compile(List<Classification> classifications) {
+            // Rows without any bound never matched in the original linear check, so they are dropped here too
+            List<Classification> bounded = new ArrayList<>();
+            for (Classification classification : classifications) {
+                if (classification.getMinValue() != null || classification.getMaxValue() != null) {
+                    bounded.add(classification);
+                }
+            }
+            List<Classification> sorted = new ArrayList<>(bounded);
+            sorted.sort(Comparator.comparingDouble(ClassificationIndex::lowerOf));
+            boolean disjoint = true;
+            for (int i = 1; i < sorted.size(); i++) {
+                if (upperOf(sorted.get(i - 1)) > lowerOf(sorted.get(i))) {
+                    disjoint = false;
+                    break;
+                }
+            }
+            if (disjoint) {
+                bounded = sorted;
+            }
+            
+            int size = bounded.size();
+            double[] lower = new double[size];
+            double[] upper = new double[size];
+            String[] labels = new String[size];
+            for (int i = 0; i < size; i++) {
+                Classification classification = bounded.get(i);
+                lower[i] = lowerOf(classification);
+                upper[i] = upperOf(classification);
+                labels[i] = classification.getRangeLabel();
+            }
+            return new CompiledRanges(lower, upper, labels, disjoint);
+        }
+        
+        /** Index of the range containing {@code value} (min inclusive, max exclusive), or -1. */
+        public int indexOf(double value) {
+            if (!disjoint) {
+                for (int i = 0; i < lower.length; i++) {
+                    if (lower[i] <= value && value < upper[i]) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            int low = 0;
+            int high = lower.length - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (lower[mid] <= value) {
+                    candidate = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return candidate >= 0 && value < upper[candidate] ? candidate : -1;
+        }
+        
+        public String label(double value) {
+            int index = indexOf(value);
+            return index < 0 ? null : labels[index];
+        }
+        
+        /**
+         * Label of the range containing {@code value}. A missing value or one outside every range
+         * falls into the last range, like the ELSE branch of the original end-category CASE.
+         */
+        public String labelOrLast(Double value) {
+            int index = value == null ? -1 : indexOf(value);
+            if (index < 0) {
+                index = labels.length - 1;
+            }
+            return index < 0 ? null : labels[index];
+        }
+        
+        public String label(int index) {
+            return labels[index];
+        }
+        
+        public double lowerBound(int index) {
+            return lower[index];
+        }
+        
+        public double upperBound(int index) {
+            return upper[index];
+        }
+        
+        public int size() {
+            return labels.length;
+        }
+    }
+}
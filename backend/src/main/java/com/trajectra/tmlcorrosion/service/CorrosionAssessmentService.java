@@ -0,0 +1,403 @@
+package com.trajectra.tmlcorrosion.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Derives corrosion rates and remaining life from each TML's thickness history and stores them
+ * in {@code tml_assessments}. Thickness series are loaded into flat primitive arrays in one
+ * ordered scan and assessed in parallel on a fork-join pool.
+ * <p>
+ * Long-term rate is the least-squares slope over the whole history, short-term rate the loss
+ * between the last two inspection dates; remaining life uses the larger of the two (API 570).
+ * <p>
+ * Writers only queue the TMLs they touched; recomputes run on the service's own thread, never on
+ * the writer's thread or the shared scheduler.
+ */
+@Service
+public class CorrosionAssessmentService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CorrosionAssessmentService.class);
+    
+    private static final double DAYS_PER_YEAR = 365.25;
+    private static final int FETCH_SIZE = 5000;
+    private static final int WRITE_BATCH_SIZE = 1000;
+    private static final int SERIES_PER_TASK = 1024;
+    
+    // Small writes are assessed right away; bigger batches (bulk ingest) wait for the periodic run to coalesce
+    private static final int MAX_IMMEDIATE_TMLS = 50;
+    // Above this many pending TMLs a full recompute is cheaper than an ANY(...) filter
+    private static final int MAX_INCREMENTAL_TMLS = 10000;
+    
+    private static final String INSERT_SQL = """
+        INSERT INTO tml_assessments (tml_record_id, reading_count, first_date, last_date, current_thickness,
+            short_term_rate, long_term_rate, remaining_life_years, retirement_date, computed_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    
+    public record RecomputeReport(int tmlCount, int readingCount, long elapsedMillis) {}
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Required (retirement) thickness, in the same unit as measurements.thickness
+    @Value("${tml.assessment.minimum-thickness:0}")
+    private double minimumThickness;
+    
+    // Converts thickness units per year to mpy; 39.37 for thickness recorded in millimetres
+    @Value("${tml.assessment.mils-per-thickness-unit:39.37}")
+    private double milsPerThicknessUnit;
+    
+    @Value("${tml.assessment.refresh-delay-ms:5000}")
+    private long refreshDelayMs;
+    
+    private final ForkJoinPool pool;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "corrosion-assessment");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public CorrosionAssessmentService(@Value("${tml.assessment.parallelism:0}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PostConstruct
+    public void start() {
+        worker.scheduleWithFixedDelay(this::assessPending, refreshDelayMs, refreshDelayMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void assessOnStartup() {
+        // Readings already in the database never raise an event, so assess the whole fleet once
+        worker.execute(() -> {
+            try {
+                recomputeAll();
+            } catch (RuntimeException e) {
+                log.warn("Initial fleet assessment failed: {}", e.getMessage());
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        pool.shutdownNow();
+    }
+    
+    public RecomputeReport recomputeAll() {
+        pending.clear();
+        return recompute(null);
+    }
+    
+    public RecomputeReport recompute(Collection<Long> tmlRecordIds) {
+        lock.lock();
+        try {
+            return recomputeLocked(tmlRecordIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private RecomputeReport recomputeLocked(Collection<Long> tmlRecordIds) {
+        long started = System.nanoTime();
+        Series series = load(tmlRecordIds);
+        Results results = assessAll(pool, series, minimumThickness, milsPerThicknessUnit);
+        persist(tmlRecordIds, series, results);
+        
+        RecomputeReport report = new RecomputeReport(series.count, series.readings, (System.nanoTime() - started) / 1_000_000);
+        if (tmlRecordIds == null) {
+            log.info("Assessed {} TMLs from {} thickness readings in {} ms", report.tmlCount(), report.readingCount(),
+                report.elapsedMillis());
+        }
+        return report;
+    }
+    
+    @EventListener
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        if (event.measurementDates().isEmpty()) {
+            // TML relabelled; thickness history is unchanged
+            return;
+        }
+        pending.addAll(event.tmlRecordIds());
+        if (event.tmlRecordIds().size() <= MAX_IMMEDIATE_TMLS && runQueued.compareAndSet(false, true)) {
+            worker.execute(this::assessPending);
+        }
+    }
+    
+    public void assessPending() {
+        runQueued.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Long> batch = new HashSet<>(pending);
+        pending.removeAll(batch);
+        try {
+            if (batch.size() > MAX_INCREMENTAL_TMLS) {
+                recompute(null);
+            } else {
+                recompute(batch);
+            }
+        } catch (RuntimeException e) {
+            // Caught so a failure never cancels the periodic run
+            log.warn("Assessment of {} pending TMLs failed, will retry: {}", batch.size(), e.getMessage());
+            pending.addAll(batch);
+        }
+    }
+    
+    private Series load(Collection<Long> tmlRecordIds) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT tml_record_id, measurement_date, thickness FROM measurements WHERE thickness IS NOT NULL");
+        if (tmlRecordIds != null) {
+            sql.append(" AND tml_record_id = ANY(?)");
+        }
+        sql.append(" ORDER BY tml_record_id, measurement_date, id");
+        
+        Series series = new Series();
+        // Cursor-based fetching needs a transaction on PostgreSQL
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(FETCH_SIZE);
+            if (tmlRecordIds != null) {
+                ps.setArray(1, con.createArrayOf("bigint", tmlRecordIds.toArray()));
+            }
+            return ps;
+        }, rs -> {
+            series.add(rs.getLong(1), (int) rs.getObject(2, LocalDate.class).toEpochDay(), rs.getDouble(3));
+        }));
+        series.finish();
+        return series;
+    }
+    
+    private void persist(Collection<Long> tmlRecordIds, Series series, Results results) {
+        Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            // TMLs whose thickness readings are all gone lose their assessment too
+            if (tmlRecordIds == null) {
+                jdbcTemplate.update("DELETE FROM tml_assessments");
+            } else {
+                jdbcTemplate.update(con -> {
+                    PreparedStatement ps = con.prepareStatement("DELETE FROM tml_assessments WHERE tml_record_id = ANY(?)");
+                    ps.setArray(1, con.createArrayOf("bigint", tmlRecordIds.toArray()));
+                    return ps;
+                });
+            }
+            
+            for (int start = 0; start < series.count; start += WRITE_BATCH_SIZE) {
+                int offset = start;
+                int size = Math.min(WRITE_BATCH_SIZE, series.count - start);
+                jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        int s = offset + i;
+                        int from = series.offsets[s];
+                        int to = series.offsets[s + 1];
+                        ps.setLong(1, series.tmlRecordIds[s]);
+                        ps.setInt(2, to - from);
+                        ps.setDate(3, Date.valueOf(LocalDate.ofEpochDay(series.days[from])));
+                        ps.setDate(4, Date.valueOf(LocalDate.ofEpochDay(series.days[to - 1])));
+                        ps.setDouble(5, series.thickness[to - 1]);
+                        setNullableDouble(ps, 6, results.shortTermRate[s]);
+                        setNullableDouble(ps, 7, results.longTermRate[s]);
+                        setNullableDouble(ps, 8, results.remainingLifeYears[s]);
+                        if (Double.isNaN(results.remainingLifeYears[s])) {
+                            ps.setNull(9, Types.DATE);
+                        } else {
+                            long retirementDay = series.days[to - 1] + Math.round(results.remainingLifeYears[s] * DAYS_PER_YEAR);
+                            ps.setDate(9, Date.valueOf(LocalDate.ofEpochDay(retirementDay)));
+                        }
+                        ps.setTimestamp(10, computedAt);
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return size;
+                    }
+                });
+            }
+        });
+    }
+    
+    private static void setNullableDouble(PreparedStatement ps, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+    
+    static Results assessAll(ForkJoinPool pool, Series series, double minimumThickness, double milsPerThicknessUnit) {
+        Results results = new Results(series.count);
+        pool.invoke(new AssessTask(series, results, 0, series.count, minimumThickness, milsPerThicknessUnit));
+        return results;
+    }
+    
+    /** Assesses series {@code i}; rates in mpy, NaN where the history is too short to tell. */
+    static void assess(Series series, Results results, int i, double minimumThickness, double milsPerThicknessUnit) {
+        int from = series.offsets[i];
+        int to = series.offsets[i + 1];
+        int[] days = series.days;
+        double[] thickness = series.thickness;
+        int lastDay = days[to - 1];
+        double current = thickness[to - 1];
+        
+        double longTerm = Double.NaN;
+        if (lastDay > days[from]) {
+            // Least-squares slope of thickness over time, x relative to the first reading
+            int n = to - from;
+            double meanX = 0;
+            double meanY = 0;
+            for (int k = from; k < to; k++) {
+                meanX += days[k] - days[from];
+                meanY += thickness[k];
+            }
+            meanX /= n;
+            meanY /= n;
+            double sxx = 0;
+            double sxy = 0;
+            for (int k = from; k < to; k++) {
+                double dx = days[k] - days[from] - meanX;
+                sxx += dx * dx;
+                sxy += dx * (thickness[k] - meanY);
+            }
+            longTerm = -(sxy / sxx) * DAYS_PER_YEAR * milsPerThicknessUnit;
+        }
+        
+        double shortTerm = Double.NaN;
+        int previous = to - 2;
+        while (previous >= from && days[previous] == lastDay) {
+            previous--;
+        }
+        if (previous >= from) {
+            double years = (lastDay - days[previous]) / DAYS_PER_YEAR;
+            shortTerm = (thickness[previous] - current) / years * milsPerThicknessUnit;
+        }
+        
+        double governing = Double.isNaN(shortTerm) ? longTerm
+            : Double.isNaN(longTerm) ? shortTerm : Math.max(shortTerm, longTerm);
+        double remainingLife = Double.NaN;
+        if (governing > 0) {
+            double lossPerYear = governing / milsPerThicknessUnit;
+            remainingLife = Math.max(0, (current - minimumThickness) / lossPerYear);
+        }
+        
+        results.shortTermRate[i] = shortTerm;
+        results.longTermRate[i] = longTerm;
+        results.remainingLifeYears[i] = remainingLife;
+    }
+    
+    /** Thickness histories of many TMLs in flat arrays; series {@code i} spans {@code offsets[i]..offsets[i+1]}. */
+    static final class Series {
+        
+        long[] tmlRecordIds = new long[1024];
+        int[] offsets = new int[1025];
+        int[] days = new int[4096];
+        double[] thickness = new double[4096];
+        int count;
+        int readings;
+        
+        void add(long tmlRecordId, int day, double value) {
+            if (count == 0 || tmlRecordIds[count - 1] != tmlRecordId) {
+                if (count == tmlRecordIds.length) {
+                    tmlRecordIds = Arrays.copyOf(tmlRecordIds, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2 + 1);
+                }
+                tmlRecordIds[count] = tmlRecordId;
+                offsets[count] = readings;
+                count++;
+            }
+            if (readings == days.length) {
+                days = Arrays.copyOf(days, readings * 2);
+                thickness = Arrays.copyOf(thickness, readings * 2);
+            }
+            days[readings] = day;
+            thickness[readings] = value;
+            readings++;
+        }
+        
+        void finish() {
+            offsets[count] = readings;
+        }
+    }
+    
+    static final class Results {
+        
+        final double[] shortTermRate;
+        final double[] longTermRate;
+        final double[] remainingLifeYears;
+        
+        Results(int count) {
+            shortTermRate = new double[count];
+            longTermRate = new double[count];
+            remainingLifeYears = new double[count];
+        }
+    }
+    
+    private static final class AssessTask extends RecursiveAction {
+        
+        private final Series series;
+        private final Results results;
+        private final int from;
+        private final int to;
+        private final double minimumThickness;
+        private final double milsPerThicknessUnit;
+        
+        AssessTask(Series series, Results results, int from, int to, double minimumThickness, double milsPerThicknessUnit) {
+            this.series = series;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.minimumThickness = minimumThickness;
+            this.milsPerThicknessUnit = milsPerThicknessUnit;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SERIES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    assess(series, results, i, minimumThickness, milsPerThicknessUnit);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AssessTask(series, results, from, mid, minimumThickness, milsPerThicknessUnit),
+                new AssessTask(series, results, mid, to, minimumThickness, milsPerThicknessUnit));
+        }
+    }
+}
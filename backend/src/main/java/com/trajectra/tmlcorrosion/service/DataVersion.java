@@ -0,0 +1,35 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the data behind the dashboard endpoints, bumped on every write to
+ * measurements, TMLs or classifications. Seeded from the clock so versions (and the ETags
+ * derived from them) are not reused across restarts.
+ */
+@Component
+public class DataVersion {
+    
+    // Read models must refresh before the version moves, or a request could cache stale data under the new version
+    public static final int READ_MODEL_ORDER = 0;
+    
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    
+    public long current() {
+        return version.get();
+    }
+    
+    public long bump() {
+        return version.incrementAndGet();
+    }
+    
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        bump();
+    }
+}
@@ -0,0 +1,37 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids for JDBC inserts, drawn from the same sequences Hibernate uses. The sequences advance by
+ * {@link #BLOCK_SIZE} (the entities' {@code allocationSize}), so each {@code nextval} reserves
+ * the block of ids ending at the returned value, as Hibernate's pooled optimizer does.
+ */
+@Component
+public class IdAllocator {
+    
+    public static final int BLOCK_SIZE = 50;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public List<Long> nextIds(String sequence, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            List<Long> highs = jdbcTemplate.queryForList("SELECT nextval('" + sequence + "') FROM generate_series(1, ?)",
+                Long.class, blocks);
+            for (long high : highs) {
+                // A fresh sequence starts at 1, which is the only id of its first block
+                for (long id = Math.max(1, high - BLOCK_SIZE + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+}
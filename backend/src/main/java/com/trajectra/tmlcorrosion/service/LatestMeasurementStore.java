@@ -0,0 +1,112 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.LatestMeasurementProjection;
+import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read model holding the latest measurement of every TML. Loaded once from the measurements
+ * table and then kept current per TML from {@link MeasurementsChangedEvent}s, so "current
+ * state" queries cost O(#TMLs) instead of a scan over the full inspection history.
+ */
+@Component
+public class LatestMeasurementStore {
+    
+    // Above this many TMLs a full reload is cheaper than an IN list (and stays under bind limits)
+    private static final int MAX_INCREMENTAL_REFRESH = 1000;
+    
+    public record LatestReading(
+        long tmlRecordId,
+        String circuitId,
+        String tmlId,
+        long measurementId,
+        LocalDate measurementDate,
+        Double thickness,
+        Double temperature,
+        Double corrosionRate
+    ) {}
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    private volatile Map<Long, LatestReading> latestByTml;
+    
+    public Collection<LatestReading> getAll() {
+        return Collections.unmodifiableCollection(loaded().values());
+    }
+    
+    public Optional<LatestReading> get(Long tmlRecordId) {
+        return Optional.ofNullable(loaded().get(tmlRecordId));
+    }
+    
+    public synchronized int rebuild() {
+        Map<Long, LatestReading> rebuilt = new ConcurrentHashMap<>();
+        for (LatestMeasurementProjection row : measurementRepository.findLatestPerTml()) {
+            LatestReading reading = toReading(row);
+            rebuilt.put(reading.tmlRecordId(), reading);
+        }
+        latestByTml = rebuilt;
+        return rebuilt.size();
+    }
+    
+    public synchronized void refresh(Collection<Long> tmlRecordIds) {
+        Map<Long, LatestReading> current = latestByTml;
+        if (current == null || tmlRecordIds.isEmpty()) {
+            // Not loaded yet; the first read will pick up the change
+            return;
+        }
+        if (tmlRecordIds.size() > MAX_INCREMENTAL_REFRESH) {
+            rebuild();
+            return;
+        }
+        
+        Set<Long> remaining = new HashSet<>(tmlRecordIds);
+        for (LatestMeasurementProjection row : measurementRepository.findLatestForTmls(tmlRecordIds)) {
+            LatestReading reading = toReading(row);
+            current.put(reading.tmlRecordId(), reading);
+            remaining.remove(reading.tmlRecordId());
+        }
+        // TMLs left over no longer have any measurement
+        for (Long tmlRecordId : remaining) {
+            current.remove(tmlRecordId);
+        }
+    }
+    
+    @EventListener
+    @Order(DataVersion.READ_MODEL_ORDER)
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        refresh(event.tmlRecordIds());
+    }
+    
+    private Map<Long, LatestReading> loaded() {
+        Map<Long, LatestReading> current = latestByTml;
+        if (current == null) {
+            synchronized (this) {
+                if (latestByTml == null) {
+                    rebuild();
+                }
+                current = latestByTml;
+            }
+        }
+        return current;
+    }
+    
+    private static LatestReading toReading(LatestMeasurementProjection row) {
+        return new LatestReading(
+            row.getTmlRecordId(),
+            row.getCircuitId(),
+            row.getTmlId(),
+            row.getMeasurementId(),
+            row.getMeasurementDate(),
+            row.getThickness(),
+            row.getTemperature(),
+            row.getCorrosionRate()
+        );
+    }
+}
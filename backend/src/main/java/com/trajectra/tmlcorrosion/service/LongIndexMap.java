@@ -0,0 +1,82 @@
+package com.trajectra.tmlcorrosion.service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a {@code long} key to a dense {@code int} slot, so per-key state can
+ * live in parallel primitive arrays instead of boxed map entries. Keys are never removed.
+ * Not thread-safe.
+ */
+final class LongIndexMap {
+    
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private long[] keys;
+    private int[] slots;
+    private int size;
+    
+    LongIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /** Slot of {@code key}, or -1. */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return slots[i];
+            }
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+    
+    /** Slot of {@code key}, assigning the next free slot on first sight. */
+    int getOrAdd(long key) {
+        int slot = get(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(key, size);
+        return size++;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void insert(long key, int slot) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        slots[i] = slot;
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldSlots.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
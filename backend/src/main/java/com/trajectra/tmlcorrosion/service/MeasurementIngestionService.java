@@ -0,0 +1,384 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.trajectra.tmlcorrosion.dto.IngestionReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk loader for inspection campaigns. Rows are read lazily from the upload and written in
+ * fixed-size chunks with batched JDBC inserts, each chunk in its own transaction, so a bad
+ * chunk is rolled back without losing the ones before or after it. Only one chunk is held in
+ * memory at a time and the number of concurrent uploads is bounded.
+ */
+@Service
+public class MeasurementIngestionService {
+    
+    public enum Format { CSV, NDJSON }
+    
+    private static final Logger log = LoggerFactory.getLogger(MeasurementIngestionService.class);
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
+    
+    private static final String INSERT_SQL = """
+        INSERT INTO measurements (id, tml_record_id, measurement_date, thickness, temperature, corrosion_rate)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    
+    private static final ObjectReader CSV_READER = new CsvMapper()
+        .readerFor(String[].class)
+        .with(CsvParser.Feature.WRAP_AS_ARRAY)
+        .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Value("${tml.ingest.chunk-size:5000}")
+    private int chunkSize;
+    
+    private final Semaphore uploadPermits;
+    
+    public MeasurementIngestionService(@Value("${tml.ingest.max-concurrent-uploads:2}") int maxConcurrentUploads) {
+        this.uploadPermits = new Semaphore(maxConcurrentUploads);
+    }
+    
+    private record Row(long tmlRecordId, LocalDate measurementDate, Double thickness, Double temperature, Double corrosionRate) {}
+    
+    /** Returns empty when the maximum number of uploads is already running. */
+    public Optional<IngestionReport> ingest(InputStream input, Format format) throws IOException {
+        if (!uploadPermits.tryAcquire()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ingestChunks(input, format));
+        } finally {
+            uploadPermits.release();
+        }
+    }
+    
+    private IngestionReport ingestChunks(InputStream input, Format format) throws IOException {
+        long started = System.nanoTime();
+        Map<String, Long> tmlLookup = loadTmlLookup();
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        
+        long rowsRead = 0;
+        long rowsInserted = 0;
+        long rowsRejected = 0;
+        int chunksCommitted = 0;
+        int chunksFailed = 0;
+        List<String> errors = new ArrayList<>();
+        MeasurementsChangedEvent.Builder changes = new MeasurementsChangedEvent.Builder();
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (RecordSource source = format == Format.CSV ? new CsvRecordSource(reader) : new NdjsonRecordSource(reader)) {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            long chunkStartLine = 1;
+            boolean more = true;
+            
+            while (more) {
+                more = source.advance();
+                if (more) {
+                    rowsRead++;
+                    try {
+                        chunk.add(source.parse(tmlLookup));
+                    } catch (RuntimeException e) {
+                        rowsRejected++;
+                        addError(errors, "line " + source.line() + ": " + e.getMessage());
+                    }
+                } else if (source.failure() != null) {
+                    addError(errors, "line " + source.line() + ": " + source.failure() + "; rest of the upload ignored");
+                }
+                
+                if (chunk.size() >= chunkSize || (!more && !chunk.isEmpty())) {
+                    List<Row> rows = chunk;
+                    try {
+                        chunkTransaction.executeWithoutResult(status -> insertChunk(rows));
+                        chunksCommitted++;
+                        rowsInserted += rows.size();
+                        for (Row row : rows) {
+                            changes.touch(row.tmlRecordId(), row.measurementDate());
+                        }
+                    } catch (DataAccessException e) {
+                        chunksFailed++;
+                        rowsRejected += rows.size();
+                        addError(errors, "lines " + chunkStartLine + "-" + source.line() + " rolled back: " + e.getMostSpecificCause().getMessage());
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                    chunkStartLine = source.line() + 1;
+                }
+            }
+        } finally {
+            // One event for the whole upload: read models refresh once instead of once per chunk.
+            // Chunks committed before a failure are still announced.
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(changes.build());
+            }
+        }
+        
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        double rowsPerSecond = elapsedMillis == 0 ? rowsInserted : rowsInserted * 1000.0 / elapsedMillis;
+        log.info("Bulk ingest: {} rows inserted, {} rejected in {} ms ({} rows/s)",
+            rowsInserted, rowsRejected, elapsedMillis, Math.round(rowsPerSecond));
+        return new IngestionReport(rowsRead, rowsInserted, rowsRejected, chunksCommitted, chunksFailed,
+            elapsedMillis, rowsPerSecond, errors);
+    }
+    
+    private void insertChunk(List<Row> rows) {
+        List<Long> ids = idAllocator.nextIds("measurements_id_seq", rows.size());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, row.tmlRecordId());
+                ps.setDate(3, Date.valueOf(row.measurementDate()));
+                setNullableDouble(ps, 4, row.thickness());
+                setNullableDouble(ps, 5, row.temperature());
+                setNullableDouble(ps, 6, row.corrosionRate());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+    
+    private Map<String, Long> loadTmlLookup() {
+        Map<String, Long> lookup = new HashMap<>();
+        jdbcTemplate.query("SELECT id, circuit_id, tml_id FROM tmls",
+            rs -> { lookup.put(tmlKey(rs.getString("circuit_id"), rs.getString("tml_id")), rs.getLong("id")); });
+        return lookup;
+    }
+    
+    /** One upload record at a time, parsed into a {@link Row} on demand. */
+    private interface RecordSource extends Closeable {
+        
+        /** Moves to the next record; false at the end of the upload or after an unreadable record. */
+        boolean advance() throws IOException;
+        
+        Row parse(Map<String, Long> tmlLookup);
+        
+        /** Line of the current record, for error reporting. */
+        long line();
+        
+        /** Why reading stopped early, or null when the upload was read to the end. */
+        default String failure() {
+            return null;
+        }
+    }
+    
+    private final class NdjsonRecordSource implements RecordSource {
+        
+        private final BufferedReader reader;
+        private String current;
+        private long line;
+        
+        NdjsonRecordSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public boolean advance() throws IOException {
+            do {
+                current = reader.readLine();
+                if (current == null) {
+                    return false;
+                }
+                line++;
+            } while (current.isBlank());
+            return true;
+        }
+        
+        @Override
+        public Row parse(Map<String, Long> tmlLookup) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(current);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("invalid JSON");
+            }
+            return toRow(
+                jsonField(node, "circuitId"),
+                jsonField(node, "tmlId"),
+                jsonField(node, "measurementDate"),
+                jsonField(node, "thickness"),
+                jsonField(node, "temperature"),
+                jsonField(node, "corrosionRate"),
+                tmlLookup);
+        }
+        
+        @Override
+        public long line() {
+            return line;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+    
+    /**
+     * RFC 4180 records, the dialect the CSV export writes: quoted fields may contain commas,
+     * doubled quotes and line breaks. Columns are matched by header name, case-insensitively.
+     */
+    private static final class CsvRecordSource implements RecordSource {
+        
+        private final MappingIterator<String[]> records;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private String[] current;
+        private long line = 1;
+        private String failure;
+        
+        CsvRecordSource(BufferedReader reader) throws IOException {
+            this.records = CSV_READER.readValues(reader);
+            if (!records.hasNextValue()) {
+                return;
+            }
+            String[] names = records.nextValue();
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("circuit_id", "tml_id", "measurement_date")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV header is missing column " + required);
+                }
+            }
+        }
+        
+        @Override
+        public boolean advance() throws IOException {
+            if (columns.isEmpty()) {
+                return false;
+            }
+            try {
+                line = records.getCurrentLocation().getLineNr();
+                if (!records.hasNextValue()) {
+                    return false;
+                }
+                current = records.nextValue();
+                return true;
+            } catch (JsonProcessingException e) {
+                failure = "malformed CSV (" + e.getOriginalMessage() + ")";
+                return false;
+            }
+        }
+        
+        @Override
+        public Row parse(Map<String, Long> tmlLookup) {
+            return toRow(
+                field("circuit_id"),
+                field("tml_id"),
+                field("measurement_date"),
+                field("thickness"),
+                field("temperature"),
+                field("corrosion_rate"),
+                tmlLookup);
+        }
+        
+        private String field(String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= current.length) {
+                return null;
+            }
+            String value = current[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+        
+        @Override
+        public long line() {
+            return line;
+        }
+        
+        @Override
+        public String failure() {
+            return failure;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            records.close();
+        }
+    }
+    
+    private static Row toRow(String circuitId, String tmlId, String date, String thickness, String temperature,
+                             String corrosionRate, Map<String, Long> tmlLookup) {
+        if (circuitId == null || tmlId == null || date == null) {
+            throw new IllegalArgumentException("circuit id, TML id and measurement date are required");
+        }
+        Long tmlRecordId = tmlLookup.get(tmlKey(circuitId, tmlId));
+        if (tmlRecordId == null) {
+            throw new IllegalArgumentException("unknown TML " + circuitId + "/" + tmlId);
+        }
+        return new Row(tmlRecordId, LocalDate.parse(date), parseDouble(thickness), parseDouble(temperature), parseDouble(corrosionRate));
+    }
+    
+    private static String jsonField(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+    
+    private static Double parseDouble(String value) {
+        return value == null ? null : Double.valueOf(value);
+    }
+    
+    private static void setNullableDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+    
+    private static String tmlKey(String circuitId, String tmlId) {
+        return circuitId + '\u0000' + tmlId;
+    }
+    
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
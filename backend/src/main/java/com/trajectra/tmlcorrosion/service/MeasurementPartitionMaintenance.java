@@ -0,0 +1,40 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+
+/**
+ * Keeps a yearly partition of {@code measurements} ready for this year and the next, so new
+ * inspections do not pile up in the default partition. Partitions are created by the
+ * {@code ensure_measurement_partition} function from the V3 migration.
+ */
+@Component
+public class MeasurementPartitionMaintenance {
+    
+    private static final Logger log = LoggerFactory.getLogger(MeasurementPartitionMaintenance.class);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${tml.partitions.maintenance-cron:0 0 3 * * *}")
+    public void ensureUpcomingPartitions() {
+        int year = LocalDate.now().getYear();
+        for (int partitionYear = year; partitionYear <= year + 1; partitionYear++) {
+            try {
+                jdbcTemplate.execute("SELECT ensure_measurement_partition(" + partitionYear + ")");
+            } catch (DataAccessException e) {
+                // Typically rows for that year already sit in the default partition
+                log.warn("Could not create measurements partition for {}: {}", partitionYear, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+}
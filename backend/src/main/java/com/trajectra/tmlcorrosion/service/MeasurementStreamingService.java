@@ -0,0 +1,215 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.trajectra.tmlcorrosion.dto.MeasurementView;
+import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes measurements as newline-delimited JSON straight from a server-side cursor. Rows are
+ * read as {@link MeasurementView}s, so nothing accumulates in the persistence context and
+ * heap use does not grow with the size of the table.
+ * <p>
+ * Exports go one level lower: a plain JDBC cursor over measurements joined to TMLs, with each
+ * column written straight from the result set to a buffered (optionally gzipped) stream.
+ */
+@Service
+public class MeasurementStreamingService {
+    
+    public enum ExportFormat { CSV, NDJSON }
+    
+    private static final int FLUSH_INTERVAL = 500;
+    private static final int EXPORT_FETCH_SIZE = 5000;
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    
+    // Column names match the bulk ingest formats, so an export can be loaded back as-is
+    private static final String CSV_HEADER =
+        "circuit_id,tml_id,tml_record_id,measurement_id,measurement_date,thickness,temperature,corrosion_rate\n";
+    
+    private static final String EXPORT_SQL = """
+        SELECT t.circuit_id, t.tml_id, m.tml_record_id, m.id, m.measurement_date, m.thickness, m.temperature, m.corrosion_rate
+        FROM measurements m
+        JOIN tmls t ON t.id = m.tml_record_id
+        WHERE m.measurement_date >= ? AND m.measurement_date <= ?
+        """;
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public StreamingResponseBody streamAsNdjson(LocalDate measurementDate) {
+        return outputStream -> {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<MeasurementView> measurements = measurementDate == null
+                        ? measurementRepository.streamAll()
+                        : measurementRepository.streamByMeasurementDate(measurementDate);
+                     SequenceWriter writer = objectMapper.writer()
+                        .withRootValueSeparator("\n")
+                        .writeValues(new BufferedOutputStream(outputStream))) {
+                    int written = 0;
+                    Iterator<MeasurementView> iterator = measurements.iterator();
+                    while (iterator.hasNext()) {
+                        writer.write(iterator.next());
+                        if (++written % FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+    
+    public StreamingResponseBody export(ExportFormat format, LocalDate from, LocalDate to, String circuitId, boolean gzip) {
+        String sql = EXPORT_SQL + (circuitId == null ? "" : " AND t.circuit_id = ?") + " ORDER BY m.measurement_date, m.id";
+        return outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE) : outputStream;
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try (ExportWriter writer = format == ExportFormat.CSV ? new CsvExportWriter(target) : new NdjsonExportWriter(target)) {
+                readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(sql);
+                    ps.setFetchSize(EXPORT_FETCH_SIZE);
+                    ps.setObject(1, from);
+                    ps.setObject(2, to);
+                    if (circuitId != null) {
+                        ps.setString(3, circuitId);
+                    }
+                    return ps;
+                }, rs -> {
+                    try {
+                        writer.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+        };
+    }
+    
+    private interface ExportWriter extends AutoCloseable {
+        
+        void write(ResultSet rs) throws SQLException, IOException;
+        
+        @Override
+        void close() throws IOException;
+    }
+    
+    private static final class CsvExportWriter implements ExportWriter {
+        
+        private final Writer out;
+        
+        CsvExportWriter(OutputStream target) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            out.write(CSV_HEADER);
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writeText(rs.getString(1));
+            out.write(',');
+            writeText(rs.getString(2));
+            out.write(',');
+            out.write(Long.toString(rs.getLong(3)));
+            out.write(',');
+            out.write(Long.toString(rs.getLong(4)));
+            out.write(',');
+            out.write(rs.getString(5));
+            for (int column = 6; column <= 8; column++) {
+                out.write(',');
+                double value = rs.getDouble(column);
+                if (!rs.wasNull()) {
+                    out.write(Double.toString(value));
+                }
+            }
+            out.write('\n');
+        }
+        
+        private void writeText(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+    
+    private final class NdjsonExportWriter implements ExportWriter {
+        
+        private final JsonGenerator generator;
+        
+        NdjsonExportWriter(OutputStream target) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(new BufferedOutputStream(target, EXPORT_BUFFER_SIZE));
+            generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeStringField("circuitId", rs.getString(1));
+            generator.writeStringField("tmlId", rs.getString(2));
+            generator.writeNumberField("tmlRecordId", rs.getLong(3));
+            generator.writeNumberField("measurementId", rs.getLong(4));
+            generator.writeStringField("measurementDate", rs.getString(5));
+            writeNullableNumber("thickness", rs, 6);
+            writeNullableNumber("temperature", rs, 7);
+            writeNullableNumber("corrosionRate", rs, 8);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        private void writeNullableNumber(String field, ResultSet rs, int column) throws SQLException, IOException {
+            double value = rs.getDouble(column);
+            if (rs.wasNull()) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
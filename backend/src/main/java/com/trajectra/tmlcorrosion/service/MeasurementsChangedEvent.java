@@ -0,0 +1,57 @@
+package com.trajectra.tmlcorrosion.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Published after measurements are written, so read models can refresh only the TMLs and
+ * inspection dates that were touched. {@code earliestDates} holds the earliest touched date of
+ * each TML when the writer knows it; TMLs missing from it count as touched from the earliest
+ * date of the whole event.
+ */
+public record MeasurementsChangedEvent(Set<Long> tmlRecordIds, Set<LocalDate> measurementDates,
+                                       Map<Long, LocalDate> earliestDates) {
+    
+    public MeasurementsChangedEvent(Set<Long> tmlRecordIds, Set<LocalDate> measurementDates) {
+        this(tmlRecordIds, measurementDates, Map.of());
+    }
+    
+    public static MeasurementsChangedEvent of(Long tmlRecordId, LocalDate measurementDate) {
+        return new MeasurementsChangedEvent(Set.of(tmlRecordId), Set.of(measurementDate), Map.of(tmlRecordId, measurementDate));
+    }
+    
+    /** Earliest date touched for {@code tmlRecordId}, or null for a TML-level change without dates. */
+    public LocalDate earliestDate(Long tmlRecordId) {
+        LocalDate date = earliestDates.get(tmlRecordId);
+        if (date != null || measurementDates.isEmpty()) {
+            return date;
+        }
+        return Collections.min(measurementDates);
+    }
+    
+    /** Collects touched (TML, date) pairs, keeping the earliest date of each TML. */
+    public static final class Builder {
+        
+        private final Map<Long, LocalDate> earliestDates = new HashMap<>();
+        private final Set<LocalDate> measurementDates = new HashSet<>();
+        
+        public Builder touch(Long tmlRecordId, LocalDate measurementDate) {
+            earliestDates.merge(tmlRecordId, measurementDate, (a, b) -> a.isBefore(b) ? a : b);
+            measurementDates.add(measurementDate);
+            return this;
+        }
+        
+        public boolean isEmpty() {
+            return earliestDates.isEmpty();
+        }
+        
+        public MeasurementsChangedEvent build() {
+            return new MeasurementsChangedEvent(new HashSet<>(earliestDates.keySet()), new HashSet<>(measurementDates),
+                new HashMap<>(earliestDates));
+        }
+    }
+}
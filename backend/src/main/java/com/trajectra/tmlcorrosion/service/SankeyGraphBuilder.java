@@ -0,0 +1,114 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.SankeyGraph;
+import java.util.*;
+
+/**
+ * Accumulates (source, target, TML) flows into a {@link SankeyGraph}: nodes and TMLs are
+ * deduplicated into tables and each link keeps the indexes of its TMLs.
+ */
+public class SankeyGraphBuilder {
+    
+    private record LinkKey(int source, int target) {}
+    
+    private static final class LinkMembers {
+        int value;
+        BitSet members = new BitSet();
+    }
+    
+    private final List<String> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private final Map<LinkKey, LinkMembers> links = new LinkedHashMap<>();
+    
+    private final Map<Long, Integer> memberIndex = new HashMap<>();
+    private final List<Long> tmlRecordIds = new ArrayList<>();
+    private final List<String> circuitIds = new ArrayList<>();
+    private final List<String> tmlIds = new ArrayList<>();
+    
+    public int node(String name) {
+        return nodeIndex.computeIfAbsent(name, k -> {
+            nodes.add(k);
+            return nodes.size() - 1;
+        });
+    }
+    
+    /** Adds one unit of flow along source -> target, carried by the given TML. */
+    public void add(int source, int target, long tmlRecordId, String circuitId, String tmlId) {
+        Integer member = memberIndex.get(tmlRecordId);
+        if (member == null) {
+            member = tmlRecordIds.size();
+            memberIndex.put(tmlRecordId, member);
+            tmlRecordIds.add(tmlRecordId);
+            circuitIds.add(circuitId);
+            tmlIds.add(tmlId);
+        }
+        LinkMembers link = links.computeIfAbsent(new LinkKey(source, target), k -> new LinkMembers());
+        link.value++;
+        link.members.set(member);
+    }
+    
+    public SankeyGraph build() {
+        // Renumber members by circuit then TML id so each link's sorted indexes come out grouped per circuit
+        int size = tmlRecordIds.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> circuitIds.get(i), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(i -> tmlIds.get(i), SankeyGraphBuilder::compareTmlIds));
+        
+        int[] renumbered = new int[size];
+        List<String> circuits = new ArrayList<>();
+        int[] circuit = new int[size];
+        long[] tmlRecordId = new long[size];
+        String[] tmlId = new String[size];
+        for (int position = 0; position < size; position++) {
+            int original = order[position];
+            renumbered[original] = position;
+            String circuitId = circuitIds.get(original);
+            if (circuits.isEmpty() || !Objects.equals(circuits.get(circuits.size() - 1), circuitId)) {
+                circuits.add(circuitId);
+            }
+            circuit[position] = circuits.size() - 1;
+            tmlRecordId[position] = tmlRecordIds.get(original);
+            tmlId[position] = tmlIds.get(original);
+        }
+        
+        List<SankeyGraph.Link> result = new ArrayList<>(links.size());
+        for (Map.Entry<LinkKey, LinkMembers> entry : links.entrySet()) {
+            BitSet members = entry.getValue().members;
+            int[] indexes = new int[members.cardinality()];
+            int n = 0;
+            for (int original = members.nextSetBit(0); original >= 0; original = members.nextSetBit(original + 1)) {
+                indexes[n++] = renumbered[original];
+            }
+            Arrays.sort(indexes);
+            result.add(new SankeyGraph.Link(entry.getKey().source(), entry.getKey().target(), entry.getValue().value, indexes));
+        }
+        return new SankeyGraph(List.copyOf(nodes), result, new SankeyGraph.Members(circuits, circuit, tmlRecordId, tmlId));
+    }
+    
+    // Numeric part first, as the dashboard orders TML ids (TML-2 before TML-10)
+    private static int compareTmlIds(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        long numberA = digits(a);
+        long numberB = digits(b);
+        if (numberA != numberB) {
+            return Long.compare(numberA, numberB);
+        }
+        return a.compareTo(b);
+    }
+    
+    private static long digits(String value) {
+        long number = -1;
+        for (int i = 0; i < value.length() && number < Long.MAX_VALUE / 10; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = Math.max(number, 0) * 10 + (c - '0');
+            }
+        }
+        return number;
+    }
+}
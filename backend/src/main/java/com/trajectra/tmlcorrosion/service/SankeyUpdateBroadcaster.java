@@ -0,0 +1,261 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.SankeyUpdate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes circuit x category count changes to Server-Sent Events subscribers. Idle subscribers
+ * are just parked async responses; all diffing and sending happens on a small dedicated pool,
+ * and bursts of writes (e.g. bulk ingest chunks) are coalesced into one diff.
+ * <p>
+ * Diffs are computed under a lock but only queued per subscriber there; each queue is drained
+ * by one pool thread at a time, so a slow client neither holds the lock nor reorders its events.
+ */
+@Component
+public class SankeyUpdateBroadcaster {
+    
+    private static final Logger log = LoggerFactory.getLogger(SankeyUpdateBroadcaster.class);
+    
+    // A subscriber this far behind is dropped; it reconnects and starts from a fresh snapshot
+    private static final int MAX_PENDING_EVENTS = 64;
+    
+    private record LinkKey(String circuitId, int category) {}
+    
+    private static final class Subscriber {
+        
+        final SseEmitter emitter;
+        final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCount = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+    
+    @Autowired
+    private LatestMeasurementStore latestMeasurementStore;
+    
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean diffPending = new AtomicBoolean();
+    private final ExecutorService fanOut;
+    
+    // Last counts pushed to subscribers (guarded by this) and the ranges they were bucketed by
+    private Map<LinkKey, Integer> published;
+    private volatile ClassificationIndex.CompiledRanges publishedRanges;
+    
+    public SankeyUpdateBroadcaster(@Value("${tml.sse.fan-out-threads:2}") int fanOutThreads, MeterRegistry meterRegistry) {
+        Gauge.builder("tml.sse.subscribers", subscribers, List::size)
+            .description("Open dashboard update streams")
+            .register(meterRegistry);
+        this.fanOut = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sankey-sse");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public SseEmitter subscribe() {
+        // No server-side timeout: dead connections are found by the heartbeat
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        fanOut.execute(() -> register(subscriber));
+        return emitter;
+    }
+    
+    @EventListener
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        // Runs after the latest-reading store has refreshed (READ_MODEL_ORDER)
+        scheduleDiff();
+    }
+    
+    @Scheduled(fixedDelayString = "${tml.sse.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("keep-alive"));
+        }
+        // Classification edits re-bucket everything without a measurement event
+        if (publishedRanges != null && publishedRanges != corrosionRateRanges()) {
+            scheduleDiff();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+    
+    private void scheduleDiff() {
+        if (subscribers.isEmpty()) {
+            // Nobody to diff for; the next subscriber's snapshot recounts from the store
+            synchronized (this) {
+                published = null;
+            }
+            return;
+        }
+        if (diffPending.compareAndSet(false, true)) {
+            fanOut.execute(this::publishDiff);
+        }
+    }
+    
+    private synchronized void publishDiff() {
+        diffPending.set(false);
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        Map<LinkKey, Integer> previous = published;
+        boolean rebucketed = publishedRanges != ranges;
+        published = counts(ranges);
+        publishedRanges = ranges;
+        if (previous == null || rebucketed) {
+            // Category indexes no longer line up with what clients hold; resend everything
+            broadcast(new SankeyUpdate(dataVersion.current(), true, toLinks(published, ranges)));
+            return;
+        }
+        
+        List<SankeyUpdate.Link> changed = new ArrayList<>();
+        for (Map.Entry<LinkKey, Integer> entry : published.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changed.add(toLink(entry.getKey(), entry.getValue(), ranges));
+            }
+        }
+        for (LinkKey key : previous.keySet()) {
+            if (!published.containsKey(key)) {
+                changed.add(toLink(key, 0, ranges));
+            }
+        }
+        if (!changed.isEmpty()) {
+            broadcast(new SankeyUpdate(dataVersion.current(), false, changed));
+        }
+    }
+    
+    private synchronized void register(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return;
+        }
+        // Joined and queued under the lock so every later delta is queued behind this snapshot
+        subscribers.add(subscriber);
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        if (published == null || publishedRanges != ranges) {
+            published = counts(ranges);
+            publishedRanges = ranges;
+        }
+        SankeyUpdate snapshot = new SankeyUpdate(dataVersion.current(), true, toLinks(published, ranges));
+        enqueue(subscriber, SseEmitter.event().name("sankey").data(snapshot, MediaType.APPLICATION_JSON));
+    }
+    
+    private void broadcast(SankeyUpdate update) {
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().name("sankey").data(update, MediaType.APPLICATION_JSON));
+        }
+    }
+    
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (subscriber.pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+            drop(subscriber, new IOException("SSE subscriber fell " + MAX_PENDING_EVENTS + " events behind"));
+            return;
+        }
+        subscriber.pending.add(event);
+        if (subscriber.draining.compareAndSet(false, true)) {
+            fanOut.execute(() -> drain(subscriber));
+        }
+    }
+    
+    private void drain(Subscriber subscriber) {
+        // Only one thread drains a subscriber at a time; the blocking send happens outside any lock
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null) {
+                subscriber.pendingCount.decrementAndGet();
+                if (subscriber.closed) {
+                    continue;
+                }
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscriber, e);
+                }
+            }
+            subscriber.draining.set(false);
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+    
+    private void drop(Subscriber subscriber, Exception cause) {
+        // Client went away or stalled; completing also fires the removal callbacks
+        close(subscriber);
+        subscriber.pending.clear();
+        subscriber.emitter.completeWithError(cause);
+        log.debug("Dropped SSE subscriber: {}", cause.getMessage());
+    }
+    
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+    
+    private Map<LinkKey, Integer> counts(ClassificationIndex.CompiledRanges ranges) {
+        Map<LinkKey, Integer> counts = new HashMap<>();
+        for (LatestMeasurementStore.LatestReading reading : latestMeasurementStore.getAll()) {
+            if (reading.corrosionRate() == null) {
+                continue;
+            }
+            int category = ranges.indexOf(reading.corrosionRate());
+            if (category >= 0) {
+                counts.merge(new LinkKey(reading.circuitId(), category), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+    
+    private static List<SankeyUpdate.Link> toLinks(Map<LinkKey, Integer> counts, ClassificationIndex.CompiledRanges ranges) {
+        List<SankeyUpdate.Link> links = new ArrayList<>(counts.size());
+        for (Map.Entry<LinkKey, Integer> entry : counts.entrySet()) {
+            links.add(toLink(entry.getKey(), entry.getValue(), ranges));
+        }
+        return links;
+    }
+    
+    private static SankeyUpdate.Link toLink(LinkKey key, int value, ClassificationIndex.CompiledRanges ranges) {
+        return new SankeyUpdate.Link(key.circuitId(), ranges.label(key.category()), value);
+    }
+    
+    private ClassificationIndex.CompiledRanges corrosionRateRanges() {
+        return classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+    }
+}
@@ -0,0 +1,81 @@
+package com.trajectra.tmlcorrosion.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical computations: the first caller for a key runs it, callers
+ * arriving while it is in flight wait for and share its result. Nothing is retained once the
+ * computation completes, and a failure is handed to the waiters but never remembered.
+ * <p>
+ * A waiter that is interrupted gives up on its own; the shared computation keeps running for
+ * the caller executing it and any other waiters.
+ */
+@Component
+public class SingleFlight {
+    
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+    
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("tml.singleflight.calls")
+            .description("Computations executed on behalf of a group of identical requests")
+            .tag("role", "leader")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("tml.singleflight.calls")
+            .description("Requests served by joining an identical in-flight computation")
+            .tag("role", "coalesced")
+            .register(meterRegistry);
+        Gauge.builder("tml.singleflight.in.flight", inFlight, Map::size)
+            .description("Distinct computations currently in flight")
+            .register(meterRegistry);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> computation) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(existing);
+        }
+        
+        leaders.increment();
+        try {
+            T result = computation.get();
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+    
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a shared computation");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
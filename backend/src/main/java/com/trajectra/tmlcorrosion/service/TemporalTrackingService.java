@@ -0,0 +1,252 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.AsOfTrackingProjection;
+import com.trajectra.tmlcorrosion.dto.SankeyGraph;
+import com.trajectra.tmlcorrosion.dto.SpecificTmlTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TrajectoryResponse;
+import com.trajectra.tmlcorrosion.dto.TransitionCount;
+import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+
+@Service
+public class TemporalTrackingService {
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransitionCube transitionCube;
+    
+    @Autowired
+    private TimeSeriesStore timeSeriesStore;
+    
+    private static final int TRAJECTORY_FETCH_SIZE = 1000;
+    
+    // Lower bound used when an as-of lookup has no tolerance window
+    private static final LocalDate UNBOUNDED_FLOOR = LocalDate.of(1, 1, 1);
+    
+    private record TransitionKey(LocalDate fromDate, LocalDate toDate, int fromCategory, int toCategory) {}
+    
+    public List<TemporalTrackingRow> getTemporalTracking(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate,
+                                                         boolean asOf, Integer toleranceDays) {
+        return asOf
+            ? getTemporalTrackingAsOf(startDate, endDate, maxCorrosionRate, toleranceDays)
+            : getTemporalTracking(startDate, endDate, maxCorrosionRate);
+    }
+    
+    public List<TemporalTrackingRow> getTemporalTracking(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        Optional<List<TemporalTrackingRow>> precomputed = transitionCube.tracking(startDate, endDate, maxCorrosionRate);
+        if (precomputed.isPresent()) {
+            return precomputed.get();
+        }
+        Optional<List<TemporalTrackingRow>> inMemory = timeSeriesStore.tracking(startDate, endDate, maxCorrosionRate);
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+        List<TemporalTrackingRow> rows = measurementRepository.findTemporalTracking(startDate, endDate, maxCorrosionRate);
+        return withEndCategory(rows, corrosionRateRanges());
+    }
+    
+    /**
+     * Temporal Sankey from the start population to the end-date category of each TML, with
+     * categories in classification order and only those that have TMLs.
+     */
+    public SankeyGraph getTemporalSankey(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        List<TemporalTrackingRow> rows = getTemporalTracking(startDate, endDate, maxCorrosionRate);
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        
+        List<List<TemporalTrackingRow>> byCategory = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            byCategory.add(new ArrayList<>());
+        }
+        for (TemporalTrackingRow row : rows) {
+            int category = row.endRate() == null ? -1 : ranges.indexOf(row.endRate());
+            if (category >= 0) {
+                byCategory.get(category).add(row);
+            }
+        }
+        
+        SankeyGraphBuilder builder = new SankeyGraphBuilder();
+        int root = builder.node("TMLs with <= " + BigDecimal.valueOf(maxCorrosionRate).stripTrailingZeros().toPlainString()
+            + " mpy corrosion rate as on " + startDate);
+        for (int category = 0; category < byCategory.size(); category++) {
+            if (byCategory.get(category).isEmpty()) {
+                continue;
+            }
+            int target = builder.node(ranges.label(category));
+            for (TemporalTrackingRow row : byCategory.get(category)) {
+                builder.add(root, target, row.tmlRecordId(), row.circuitId(), row.tmlId());
+            }
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Per-circuit category-to-category counts between two dates, straight from the transition
+     * cube when the pair is materialized and otherwise aggregated from the live rows.
+     */
+    public List<TransitionCount> getTransitionCounts(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        Optional<List<TransitionCount>> precomputed = transitionCube.counts(startDate, endDate, maxCorrosionRate);
+        if (precomputed.isPresent()) {
+            return precomputed.get();
+        }
+        
+        record CellKey(String circuitId, String fromCategory, String toCategory) {}
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        Map<CellKey, int[]> counts = new TreeMap<>(Comparator.comparing(CellKey::circuitId)
+            .thenComparing(CellKey::fromCategory, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CellKey::toCategory, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<TemporalTrackingRow> rows = timeSeriesStore.tracking(startDate, endDate, maxCorrosionRate)
+            .orElseGet(() -> measurementRepository.findTemporalTracking(startDate, endDate, maxCorrosionRate));
+        for (TemporalTrackingRow row : rows) {
+            String toCategory = row.endRate() == null ? null : ranges.label(row.endRate());
+            counts.computeIfAbsent(new CellKey(row.circuitId(), ranges.label(row.startRate()), toCategory), k -> new int[1])[0]++;
+        }
+        
+        List<TransitionCount> result = new ArrayList<>(counts.size());
+        for (Map.Entry<CellKey, int[]> entry : counts.entrySet()) {
+            CellKey key = entry.getKey();
+            result.add(new TransitionCount(key.circuitId(), key.fromCategory(), key.toCategory(), entry.getValue()[0]));
+        }
+        return result;
+    }
+    
+    /**
+     * As-of variant of {@link #getTemporalTracking}: each TML's state at a date is its latest
+     * reading on or before that date, optionally no older than {@code toleranceDays}. The end
+     * reading must be newer than the start reading.
+     */
+    public List<TemporalTrackingRow> getTemporalTrackingAsOf(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate,
+                                                             Integer toleranceDays) {
+        LocalDate startFloor = toleranceDays == null ? UNBOUNDED_FLOOR : startDate.minusDays(toleranceDays);
+        LocalDate endFloor = toleranceDays == null ? UNBOUNDED_FLOOR : endDate.minusDays(toleranceDays);
+        Optional<List<TemporalTrackingRow>> inMemory = timeSeriesStore.trackingAsOf(startDate, startFloor, endDate, endFloor,
+            maxCorrosionRate);
+        if (inMemory.isPresent()) {
+            return inMemory.get();
+        }
+        List<AsOfTrackingProjection> projections = measurementRepository.findTemporalTrackingAsOf(
+            startDate, startFloor, endDate, endFloor, maxCorrosionRate);
+        
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        List<TemporalTrackingRow> rows = new ArrayList<>(projections.size());
+        for (AsOfTrackingProjection projection : projections) {
+            rows.add(new TemporalTrackingRow(projection.getTmlRecordId(), projection.getCircuitId(), projection.getTmlId(),
+                projection.getStartRate(), projection.getEndRate(), ranges.labelOrLast(projection.getEndRate()),
+                projection.getStartMeasurementDate(), projection.getEndMeasurementDate()));
+        }
+        return rows;
+    }
+    
+    public List<SpecificTmlTrackingRow> getTemporalTrackingForSpecificTmls(LocalDate startDate, LocalDate endDate, List<String> tmlIds) {
+        List<SpecificTmlTrackingRow> rows = measurementRepository.findTemporalTrackingForSpecificTmls(startDate, endDate, tmlIds);
+        ClassificationIndex.CompiledRanges ranges = corrosionRateRanges();
+        
+        List<SpecificTmlTrackingRow> result = new ArrayList<>(rows.size());
+        for (SpecificTmlTrackingRow row : rows) {
+            result.add(row.withEndCategory(ranges.labelOrLast(row.endCorrosionRate())));
+        }
+        return result;
+    }
+    
+    private ClassificationIndex.CompiledRanges corrosionRateRanges() {
+        return classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+    }
+    
+    static List<TemporalTrackingRow> withEndCategory(List<TemporalTrackingRow> rows, ClassificationIndex.CompiledRanges ranges) {
+        List<TemporalTrackingRow> result = new ArrayList<>(rows.size());
+        for (TemporalTrackingRow row : rows) {
+            result.add(row.withEndCategory(ranges.labelOrLast(row.endRate())));
+        }
+        return result;
+    }
+    
+    /**
+     * Category path of every TML across {@code dates} (all inspection dates when empty), computed
+     * in one ordered scan of the measurements table and aggregated into stage-to-stage transition
+     * counts. {@code maxCorrosionRate} filters on each TML's first reading within the dates.
+     */
+    @Transactional(readOnly = true)
+    public TrajectoryResponse getTrajectory(List<LocalDate> dates, Double maxCorrosionRate) {
+        ClassificationIndex.CompiledRanges ranges = classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+        boolean allDates = dates == null || dates.isEmpty();
+        
+        StringBuilder sql = new StringBuilder("SELECT tml_record_id, measurement_date, corrosion_rate FROM measurements");
+        if (!allDates) {
+            sql.append(" WHERE measurement_date IN (").append(String.join(",", Collections.nCopies(dates.size(), "?"))).append(")");
+        }
+        sql.append(" ORDER BY tml_record_id, measurement_date, id");
+        
+        Map<TransitionKey, int[]> counts = new HashMap<>();
+        SortedSet<LocalDate> seenDates = new TreeSet<>();
+        
+        // Per-TML scan state; rows arrive grouped by TML and ordered by date
+        long[] currentTml = { Long.MIN_VALUE };
+        LocalDate[] previousDate = { null };
+        int[] previousCategory = { -1 };
+        boolean[] included = { false };
+        
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(TRAJECTORY_FETCH_SIZE);
+            if (!allDates) {
+                for (int i = 0; i < dates.size(); i++) {
+                    ps.setObject(i + 1, dates.get(i));
+                }
+            }
+            return ps;
+        }, rs -> {
+            long tmlRecordId = rs.getLong(1);
+            LocalDate date = rs.getObject(2, LocalDate.class);
+            double rate = rs.getDouble(3);
+            int category = rs.wasNull() ? -1 : ranges.indexOf(rate);
+            seenDates.add(date);
+            
+            if (tmlRecordId != currentTml[0]) {
+                currentTml[0] = tmlRecordId;
+                included[0] = maxCorrosionRate == null || (category >= 0 && rate <= maxCorrosionRate);
+            } else if (included[0] && category >= 0 && previousCategory[0] >= 0 && !date.equals(previousDate[0])) {
+                counts.computeIfAbsent(new TransitionKey(previousDate[0], date, previousCategory[0], category), k -> new int[1])[0]++;
+            }
+            previousDate[0] = date;
+            previousCategory[0] = category;
+        });
+        
+        List<LocalDate> stages = new ArrayList<>(allDates ? seenDates : new TreeSet<>(dates));
+        Map<LocalDate, Integer> stageIndex = new HashMap<>();
+        for (int i = 0; i < stages.size(); i++) {
+            stageIndex.put(stages.get(i), i);
+        }
+        
+        // A TML that skipped an inspection spans non-adjacent stages; only consecutive stages are reported
+        List<TrajectoryResponse.Transition> transitions = new ArrayList<>();
+        for (Map.Entry<TransitionKey, int[]> entry : counts.entrySet()) {
+            TransitionKey key = entry.getKey();
+            int fromStage = stageIndex.get(key.fromDate());
+            int toStage = stageIndex.get(key.toDate());
+            if (toStage == fromStage + 1) {
+                transitions.add(new TrajectoryResponse.Transition(fromStage, toStage, key.fromDate(), key.toDate(),
+                    ranges.label(key.fromCategory()), ranges.label(key.toCategory()), entry.getValue()[0]));
+            }
+        }
+        transitions.sort(Comparator.comparingInt(TrajectoryResponse.Transition::fromStage)
+            .thenComparing(TrajectoryResponse.Transition::source)
+            .thenComparing(TrajectoryResponse.Transition::target));
+        
+        return new TrajectoryResponse(stages, transitions);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,355 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory copy of the full inspection history, one columnar series per TML: epoch
+ * days plus thickness, temperature and corrosion rate as primitive arrays (NaN for nulls).
+ * Loaded in one streaming pass at startup and kept in sync per TML from
+ * {@link MeasurementsChangedEvent}s, so exact-date and as-of tracking and the date list are
+ * answered without touching the database.
+ * <p>
+ * Disabled unless {@code tml.timeseries.enabled} is set; callers fall back to SQL while
+ * {@link #isLoaded()} is false.
+ */
+@Component
+public class TimeSeriesStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(TimeSeriesStore.class);
+    
+    private static final int FETCH_SIZE = 5000;
+    
+    // Below this many TMLs splitting a scan across cores costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    
+    private static final String SELECT_SQL = """
+        SELECT m.tml_record_id, t.circuit_id, t.tml_id, m.measurement_date, m.thickness, m.temperature, m.corrosion_rate
+        FROM measurements m
+        JOIN tmls t ON t.id = m.tml_record_id
+        """;
+    private static final String ORDER_SQL = " ORDER BY m.tml_record_id, m.measurement_date, m.id";
+    
+    /** One TML's readings in date order. Immutable; a change replaces the whole series. */
+    static final class Series {
+        
+        final long tmlRecordId;
+        final String circuitId;
+        final String tmlId;
+        final int[] days;
+        final double[] thickness;
+        final double[] temperature;
+        final double[] corrosionRate;
+        
+        Series(long tmlRecordId, String circuitId, String tmlId, int[] days, double[] thickness, double[] temperature,
+               double[] corrosionRate) {
+            this.tmlRecordId = tmlRecordId;
+            this.circuitId = circuitId;
+            this.tmlId = tmlId;
+            this.days = days;
+            this.thickness = thickness;
+            this.temperature = temperature;
+            this.corrosionRate = corrosionRate;
+        }
+        
+        /** Index of the first reading on or after {@code day}. */
+        int lowerBound(int day) {
+            int low = 0;
+            int high = days.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        /** Index of the latest reading on or before {@code day} and not before {@code floor}, or -1. */
+        int latestBetween(int floor, int day) {
+            int index = lowerBound(day + 1) - 1;
+            return index >= 0 && days[index] >= floor ? index : -1;
+        }
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
+    @Value("${tml.timeseries.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${tml.timeseries.parallel:true}")
+    private boolean parallel;
+    
+    private volatile Map<Long, Series> seriesByTml;
+    
+    // Readings per epoch day, to keep the distinct date list current; guarded by this
+    private final TreeMap<Integer, Integer> readingsPerDay = new TreeMap<>();
+    private volatile List<LocalDate> dates = List.of();
+    
+    public boolean isLoaded() {
+        return seriesByTml != null;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+    
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        Map<Long, Series> rebuilt = new ConcurrentHashMap<>();
+        int readings = load(SELECT_SQL + ORDER_SQL, null, series -> rebuilt.put(series.tmlRecordId, series));
+        readingsPerDay.clear();
+        for (Series series : rebuilt.values()) {
+            count(series, 1);
+        }
+        publishDates();
+        seriesByTml = rebuilt;
+        log.info("Time-series store loaded {} readings for {} TMLs in {} ms",
+            readings, rebuilt.size(), (System.nanoTime() - started) / 1_000_000);
+        return rebuilt.size();
+    }
+    
+    @EventListener
+    @Order(DataVersion.READ_MODEL_ORDER)
+    public synchronized void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        Map<Long, Series> current = seriesByTml;
+        if (current == null || event.tmlRecordIds().isEmpty()) {
+            // Not loaded yet; the initial load will see the change
+            return;
+        }
+        
+        Map<Long, Series> reloaded = new HashMap<>();
+        load(SELECT_SQL + " WHERE m.tml_record_id = ANY(?)" + ORDER_SQL, event.tmlRecordIds(),
+            series -> reloaded.put(series.tmlRecordId, series));
+        for (Long tmlRecordId : event.tmlRecordIds()) {
+            Series previous = current.get(tmlRecordId);
+            if (previous != null) {
+                count(previous, -1);
+            }
+            Series series = reloaded.get(tmlRecordId);
+            if (series == null) {
+                // No measurements left (or the TML itself is gone)
+                current.remove(tmlRecordId);
+            } else {
+                count(series, 1);
+                current.put(tmlRecordId, series);
+            }
+        }
+        publishDates();
+    }
+    
+    public Optional<List<LocalDate>> measurementDates() {
+        return isLoaded() ? Optional.of(dates) : Optional.empty();
+    }
+    
+    /**
+     * Same pairing as {@code MeasurementRepository.findTemporalTracking}: every reading on
+     * {@code startDate} at or below the threshold against every reading of the TML on {@code endDate}.
+     */
+    public Optional<List<TemporalTrackingRow>> tracking(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        Map<Long, Series> current = seriesByTml;
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (maxCorrosionRate == null) {
+            return Optional.of(List.of());
+        }
+        int startDay = (int) startDate.toEpochDay();
+        int endDay = (int) endDate.toEpochDay();
+        double maxRate = maxCorrosionRate;
+        ClassificationIndex.CompiledRanges ranges = classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+        
+        return Optional.of(scan(current).flatMap(series -> {
+            int start = series.lowerBound(startDay);
+            int end = series.lowerBound(endDay);
+            if (start == series.days.length || series.days[start] != startDay
+                    || end == series.days.length || series.days[end] != endDay) {
+                return Stream.empty();
+            }
+            List<TemporalTrackingRow> rows = new ArrayList<>(1);
+            for (int s = start; s < series.days.length && series.days[s] == startDay; s++) {
+                double startRate = series.corrosionRate[s];
+                if (Double.isNaN(startRate) || startRate > maxRate) {
+                    continue;
+                }
+                for (int f = end; f < series.days.length && series.days[f] == endDay; f++) {
+                    rows.add(row(series, startRate, series.corrosionRate[f], ranges, null, null));
+                }
+            }
+            return rows.stream();
+        }).collect(Collectors.toList()));
+    }
+    
+    /**
+     * Same semantics as {@code MeasurementRepository.findTemporalTrackingAsOf}: each TML's latest
+     * reading in [startFloor, startDate] against its latest reading in [endFloor, endDate] that
+     * is strictly newer.
+     */
+    public Optional<List<TemporalTrackingRow>> trackingAsOf(LocalDate startDate, LocalDate startFloor, LocalDate endDate,
+                                                            LocalDate endFloor, Double maxCorrosionRate) {
+        Map<Long, Series> current = seriesByTml;
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (maxCorrosionRate == null) {
+            return Optional.of(List.of());
+        }
+        int startDay = (int) startDate.toEpochDay();
+        int startFloorDay = (int) startFloor.toEpochDay();
+        int endDay = (int) endDate.toEpochDay();
+        int endFloorDay = (int) endFloor.toEpochDay();
+        double maxRate = maxCorrosionRate;
+        ClassificationIndex.CompiledRanges ranges = classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+        
+        return Optional.of(scan(current).flatMap(series -> {
+            int start = series.latestBetween(startFloorDay, startDay);
+            if (start < 0 || Double.isNaN(series.corrosionRate[start]) || series.corrosionRate[start] > maxRate) {
+                return Stream.empty();
+            }
+            int end = series.latestBetween(Math.max(endFloorDay, series.days[start] + 1), endDay);
+            if (end < 0) {
+                return Stream.empty();
+            }
+            return Stream.of(row(series, series.corrosionRate[start], series.corrosionRate[end], ranges,
+                LocalDate.ofEpochDay(series.days[start]), LocalDate.ofEpochDay(series.days[end])));
+        }).collect(Collectors.toList()));
+    }
+    
+    private Stream<Series> scan(Map<Long, Series> current) {
+        Collection<Series> all = current.values();
+        return parallel && all.size() >= PARALLEL_THRESHOLD ? all.parallelStream() : all.stream();
+    }
+    
+    private static TemporalTrackingRow row(Series series, double startRate, double endRate,
+                                           ClassificationIndex.CompiledRanges ranges, LocalDate startDate, LocalDate endDate) {
+        Double end = Double.isNaN(endRate) ? null : endRate;
+        return new TemporalTrackingRow(series.tmlRecordId, series.circuitId, series.tmlId, startRate, end,
+            ranges.labelOrLast(end), startDate, endDate);
+    }
+    
+    private void count(Series series, int delta) {
+        for (int day : series.days) {
+            readingsPerDay.merge(day, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+    
+    private void publishDates() {
+        List<LocalDate> published = new ArrayList<>(readingsPerDay.size());
+        for (Integer day : readingsPerDay.keySet()) {
+            published.add(LocalDate.ofEpochDay(day));
+        }
+        dates = Collections.unmodifiableList(published);
+    }
+    
+    private interface SeriesSink {
+        void accept(Series series);
+    }
+    
+    /** Streams rows ordered by TML and date, cutting a series at each TML boundary. Returns the row count. */
+    private int load(String sql, Collection<Long> tmlRecordIds, SeriesSink sink) {
+        SeriesBuffer buffer = new SeriesBuffer();
+        int[] rows = { 0 };
+        // Cursor-based fetching needs a transaction on PostgreSQL
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            if (tmlRecordIds != null) {
+                ps.setArray(1, con.createArrayOf("bigint", tmlRecordIds.toArray()));
+            }
+            return ps;
+        }, rs -> {
+            long tmlRecordId = rs.getLong(1);
+            if (buffer.size > 0 && tmlRecordId != buffer.tmlRecordId) {
+                sink.accept(buffer.drain());
+            }
+            if (buffer.size == 0) {
+                buffer.start(tmlRecordId, rs.getString(2), rs.getString(3));
+            }
+            buffer.add((int) rs.getObject(4, LocalDate.class).toEpochDay(),
+                nullableDouble(rs, 5), nullableDouble(rs, 6), nullableDouble(rs, 7));
+            rows[0]++;
+        }));
+        if (buffer.size > 0) {
+            sink.accept(buffer.drain());
+        }
+        return rows[0];
+    }
+    
+    /** Growable columns reused across TMLs while loading. */
+    private static final class SeriesBuffer {
+        
+        long tmlRecordId;
+        String circuitId;
+        String tmlId;
+        int size;
+        int[] days = new int[16];
+        double[] thickness = new double[16];
+        double[] temperature = new double[16];
+        double[] corrosionRate = new double[16];
+        
+        void start(long tmlRecordId, String circuitId, String tmlId) {
+            this.tmlRecordId = tmlRecordId;
+            this.circuitId = circuitId;
+            this.tmlId = tmlId;
+        }
+        
+        void add(int day, double thicknessValue, double temperatureValue, double corrosionRateValue) {
+            if (size == days.length) {
+                int capacity = size * 2;
+                days = Arrays.copyOf(days, capacity);
+                thickness = Arrays.copyOf(thickness, capacity);
+                temperature = Arrays.copyOf(temperature, capacity);
+                corrosionRate = Arrays.copyOf(corrosionRate, capacity);
+            }
+            days[size] = day;
+            thickness[size] = thicknessValue;
+            temperature[size] = temperatureValue;
+            corrosionRate[size] = corrosionRateValue;
+            size++;
+        }
+        
+        Series drain() {
+            Series series = new Series(tmlRecordId, circuitId, tmlId, Arrays.copyOf(days, size), Arrays.copyOf(thickness, size),
+                Arrays.copyOf(temperature, size), Arrays.copyOf(corrosionRate, size));
+            size = 0;
+            return series;
+        }
+    }
+    
+    private static double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+}
@@ -0,0 +1,268 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.dto.TransitionCount;
+import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized transitions between consecutive inspection dates: for each date pair, the TMLs
+ * of every (circuit, start category, end category) cell with their rates sorted by start rate.
+ * A threshold query takes whole cells below it, skips cells above it and binary-searches the
+ * few that straddle it, instead of re-running the measurements self-join.
+ * <p>
+ * Writes only record which dates changed; a background job on the cube's own thread rebuilds
+ * the affected pairs. Until then {@link #tracking} returns empty for those pairs and callers fall
+ * back to the live query.
+ * <p>
+ * Memory: a cell keeps only the TML record id and both rates (24 bytes per TML measured on both
+ * dates); TML ids are resolved from {@link LatestMeasurementStore} when rows are served. Only the
+ * most recent {@code tml.cube.max-pairs} pairs are materialized, so the cube is bounded by roughly
+ * 24 B x TMLs x max-pairs, e.g. about 58 MB for 100k TMLs and the default 24 pairs.
+ */
+@Component
+public class TransitionCube {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransitionCube.class);
+    
+    private record DatePair(LocalDate from, LocalDate to) {}
+    
+    private record PairCube(long builtAt, ClassificationIndex.CompiledRanges ranges, List<Cell> cells) {}
+    
+    /** TMLs of one cell, ordered by start rate so a threshold cuts a prefix. */
+    private static final class Cell {
+        
+        final String circuitId;
+        final int startCategory;
+        final int endCategory;
+        final long[] tmlRecordIds;
+        final double[] startRates;
+        final double[] endRates;
+        
+        Cell(String circuitId, int startCategory, int endCategory, List<TemporalTrackingRow> rows) {
+            this.circuitId = circuitId;
+            this.startCategory = startCategory;
+            this.endCategory = endCategory;
+            rows.sort(Comparator.comparingDouble(TemporalTrackingRow::startRate));
+            int size = rows.size();
+            this.tmlRecordIds = new long[size];
+            this.startRates = new double[size];
+            this.endRates = new double[size];
+            for (int i = 0; i < size; i++) {
+                TemporalTrackingRow row = rows.get(i);
+                tmlRecordIds[i] = row.tmlRecordId();
+                startRates[i] = row.startRate();
+                endRates[i] = row.endRate() == null ? Double.NaN : row.endRate();
+            }
+        }
+        
+        /** Number of leading rows with a start rate at or below {@code maxRate}. */
+        int countAtMost(double maxRate) {
+            int size = startRates.length;
+            if (size == 0 || startRates[0] > maxRate) {
+                return 0;
+            }
+            if (startRates[size - 1] <= maxRate) {
+                return size;
+            }
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (startRates[mid] <= maxRate) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private ClassificationIndex classificationIndex;
+    
+    @Autowired
+    private LatestMeasurementStore latestMeasurementStore;
+    
+    @Value("${tml.cube.initial-delay-ms:10000}")
+    private long initialDelayMs;
+    
+    @Value("${tml.cube.refresh-delay-ms:5000}")
+    private long refreshDelayMs;
+    
+    @Value("${tml.cube.max-pairs:24}")
+    private int maxPairs;
+    
+    // Rebuilds can scan a lot of history; keep them off the shared scheduler thread
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transition-cube");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Map<DatePair, PairCube> cubes = new ConcurrentHashMap<>();
+    
+    // A cube is only served if it was built after the last change to either of its dates
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final Map<LocalDate, Long> dateChangedAt = new ConcurrentHashMap<>();
+    private final AtomicLong allChangedAt = new AtomicLong();
+    
+    public Optional<List<TemporalTrackingRow>> tracking(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        PairCube cube = servable(startDate, endDate);
+        if (cube == null || maxCorrosionRate == null) {
+            return Optional.empty();
+        }
+        
+        List<TemporalTrackingRow> rows = new ArrayList<>();
+        for (Cell cell : cube.cells()) {
+            int count = cell.countAtMost(maxCorrosionRate);
+            String endCategory = cell.endCategory < 0 ? cube.ranges().labelOrLast(null) : cube.ranges().label(cell.endCategory);
+            for (int i = 0; i < count; i++) {
+                double endRate = cell.endRates[i];
+                long tmlRecordId = cell.tmlRecordIds[i];
+                rows.add(new TemporalTrackingRow(tmlRecordId, cell.circuitId, tmlId(tmlRecordId), cell.startRates[i],
+                    Double.isNaN(endRate) ? null : endRate, endCategory, null, null));
+            }
+        }
+        return Optional.of(rows);
+    }
+    
+    public Optional<List<TransitionCount>> counts(LocalDate startDate, LocalDate endDate, Double maxCorrosionRate) {
+        PairCube cube = servable(startDate, endDate);
+        if (cube == null || maxCorrosionRate == null) {
+            return Optional.empty();
+        }
+        
+        List<TransitionCount> counts = new ArrayList<>();
+        for (Cell cell : cube.cells()) {
+            int count = cell.countAtMost(maxCorrosionRate);
+            if (count > 0) {
+                counts.add(new TransitionCount(cell.circuitId, label(cube.ranges(), cell.startCategory),
+                    label(cube.ranges(), cell.endCategory), count));
+            }
+        }
+        return Optional.of(counts);
+    }
+    
+    @EventListener
+    @Order(DataVersion.READ_MODEL_ORDER)
+    public void onMeasurementsChanged(MeasurementsChangedEvent event) {
+        long sequence = changeSequence.incrementAndGet();
+        if (event.measurementDates().isEmpty()) {
+            // TML-level change (e.g. circuit relabelled): every pair may be affected
+            allChangedAt.accumulateAndGet(sequence, Math::max);
+            return;
+        }
+        for (LocalDate date : event.measurementDates()) {
+            dateChangedAt.merge(date, sequence, Math::max);
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // A failed run must not cancel the schedule; stale pairs keep falling back to SQL
+                log.warn("Transition cube refresh failed", e);
+            }
+        }, initialDelayMs, refreshDelayMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    public void refresh() {
+        List<LocalDate> dates = measurementRepository.findDistinctMeasurementDates();
+        Set<DatePair> pairs = new LinkedHashSet<>();
+        for (int i = Math.max(1, dates.size() - maxPairs); i < dates.size(); i++) {
+            pairs.add(new DatePair(dates.get(i - 1), dates.get(i)));
+        }
+        cubes.keySet().retainAll(pairs);
+        
+        ClassificationIndex.CompiledRanges ranges = classificationIndex.ranges(ClassificationIndex.CORROSION_RATE);
+        int rebuilt = 0;
+        for (DatePair pair : pairs) {
+            PairCube existing = cubes.get(pair);
+            if (existing != null && isCurrent(existing, pair, ranges)) {
+                continue;
+            }
+            // Read the sequence first: a write that lands while building invalidates the new cube right away
+            long builtAt = changeSequence.get();
+            cubes.put(pair, build(pair, builtAt, ranges));
+            rebuilt++;
+        }
+        if (rebuilt > 0) {
+            log.info("Rebuilt transition cube for {} of {} date pairs", rebuilt, pairs.size());
+        }
+    }
+    
+    private PairCube build(DatePair pair, long builtAt, ClassificationIndex.CompiledRanges ranges) {
+        record CellKey(String circuitId, int startCategory, int endCategory) {}
+        
+        Map<CellKey, List<TemporalTrackingRow>> rowsByCell = new HashMap<>();
+        for (TemporalTrackingRow row : measurementRepository.findTransitions(pair.from(), pair.to())) {
+            int startCategory = ranges.indexOf(row.startRate());
+            int endCategory = row.endRate() == null ? -1 : ranges.indexOf(row.endRate());
+            rowsByCell.computeIfAbsent(new CellKey(row.circuitId(), startCategory, endCategory), k -> new ArrayList<>()).add(row);
+        }
+        
+        List<Cell> cells = new ArrayList<>(rowsByCell.size());
+        for (Map.Entry<CellKey, List<TemporalTrackingRow>> entry : rowsByCell.entrySet()) {
+            CellKey key = entry.getKey();
+            cells.add(new Cell(key.circuitId(), key.startCategory(), key.endCategory(), entry.getValue()));
+        }
+        cells.sort(Comparator.comparing((Cell cell) -> cell.circuitId)
+            .thenComparingInt(cell -> cell.startCategory)
+            .thenComparingInt(cell -> cell.endCategory));
+        return new PairCube(builtAt, ranges, cells);
+    }
+    
+    private PairCube servable(LocalDate startDate, LocalDate endDate) {
+        DatePair pair = new DatePair(startDate, endDate);
+        PairCube cube = cubes.get(pair);
+        if (cube == null || !isCurrent(cube, pair, classificationIndex.ranges(ClassificationIndex.CORROSION_RATE))) {
+            return null;
+        }
+        return cube;
+    }
+    
+    private boolean isCurrent(PairCube cube, DatePair pair, ClassificationIndex.CompiledRanges ranges) {
+        // Classification edits swap in a new CompiledRanges instance
+        return cube.ranges() == ranges
+            && cube.builtAt() >= allChangedAt.get()
+            && cube.builtAt() >= dateChangedAt.getOrDefault(pair.from(), 0L)
+            && cube.builtAt() >= dateChangedAt.getOrDefault(pair.to(), 0L);
+    }
+    
+    private String tmlId(long tmlRecordId) {
+        // A TML measured on both dates always has a latest reading; relabels invalidate every pair
+        return latestMeasurementStore.get(tmlRecordId).map(LatestMeasurementStore.LatestReading::tmlId).orElse(null);
+    }
+    
+    private static String label(ClassificationIndex.CompiledRanges ranges, int category) {
+        return category < 0 ? null : ranges.label(category);
+    }
+}
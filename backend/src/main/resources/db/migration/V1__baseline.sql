@@ -0,0 +1,54 @@
+-- Schema as previously created by Hibernate and the README. IF NOT EXISTS lets this run
+-- against databases that already have it (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS tmls (
+    id BIGSERIAL PRIMARY KEY,
+    circuit_id VARCHAR(255) NOT NULL,
+    tml_id VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS measurements (
+    id BIGSERIAL PRIMARY KEY,
+    tml_record_id BIGINT NOT NULL REFERENCES tmls(id),
+    measurement_date DATE NOT NULL,
+    thickness DOUBLE PRECISION,
+    temperature DOUBLE PRECISION,
+    corrosion_rate DOUBLE PRECISION
+);
+
+CREATE TABLE IF NOT EXISTS classifications (
+    id BIGSERIAL PRIMARY KEY,
+    classification_type VARCHAR(255) NOT NULL,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    range_label VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS tml_assessments (
+    tml_record_id BIGINT PRIMARY KEY,
+    reading_count INTEGER NOT NULL,
+    first_date DATE NOT NULL,
+    last_date DATE NOT NULL,
+    current_thickness DOUBLE PRECISION NOT NULL,
+    short_term_rate DOUBLE PRECISION,
+    long_term_rate DOUBLE PRECISION,
+    remaining_life_years DOUBLE PRECISION,
+    retirement_date DATE,
+    computed_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS measurement_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    tml_record_id BIGINT NOT NULL,
+    measurement_id BIGINT NOT NULL,
+    measurement_date DATE NOT NULL,
+    alert_type VARCHAR(32) NOT NULL,
+    observed DOUBLE PRECISION,
+    expected DOUBLE PRECISION,
+    created_at TIMESTAMP NOT NULL,
+    UNIQUE (measurement_id, alert_type)
+);
+
+-- Hibernate-generated schemas use standalone sequences instead of serial defaults
+CREATE SEQUENCE IF NOT EXISTS tmls_id_seq;
+CREATE SEQUENCE IF NOT EXISTS measurements_id_seq;
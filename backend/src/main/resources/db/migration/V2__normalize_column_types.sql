@@ -0,0 +1,16 @@
+-- Older hand-written schemas used SERIAL ids and DECIMAL values; align them with the entity
+-- mappings so ddl-auto=validate passes. Changing a column to the type it already has is a no-op.
+
+ALTER TABLE tmls
+    ALTER COLUMN id TYPE BIGINT,
+    ALTER COLUMN circuit_id TYPE VARCHAR(255),
+    ALTER COLUMN tml_id TYPE VARCHAR(255);
+
+ALTER TABLE classifications
+    ALTER COLUMN id TYPE BIGINT,
+    ALTER COLUMN classification_type TYPE VARCHAR(255),
+    ALTER COLUMN range_label TYPE VARCHAR(255),
+    ALTER COLUMN min_value TYPE DOUBLE PRECISION,
+    ALTER COLUMN max_value TYPE DOUBLE PRECISION;
+
+-- measurements is rebuilt with normalized types by V3
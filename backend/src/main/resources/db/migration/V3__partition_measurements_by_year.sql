@@ -0,0 +1,72 @@
+-- Range-partition measurements by inspection year so date-filtered queries only scan the
+-- partitions they need. The primary key has to include the partition key.
+
+CREATE OR REPLACE FUNCTION ensure_measurement_partition(partition_year INTEGER) RETURNS VOID AS $$
+DECLARE
+    partition_name TEXT := 'measurements_y' || partition_year;
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF measurements FOR VALUES FROM (%L) TO (%L)',
+            partition_name, make_date(partition_year, 1, 1), make_date(partition_year + 1, 1, 1));
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    first_year INTEGER;
+    last_year INTEGER;
+    current_year INTEGER := EXTRACT(YEAR FROM CURRENT_DATE);
+    id_identity "char";
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'measurements'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE measurements RENAME TO measurements_unpartitioned;
+
+    SELECT attidentity INTO id_identity
+    FROM pg_attribute
+    WHERE attrelid = 'measurements_unpartitioned'::regclass AND attname = 'id';
+    IF id_identity <> '' THEN
+        -- Identity sequences cannot be detached; drop the identity and use a standalone sequence
+        ALTER TABLE measurements_unpartitioned ALTER COLUMN id DROP IDENTITY;
+        CREATE SEQUENCE measurements_id_seq AS BIGINT;
+    ELSE
+        -- Keep the id sequence when the old table (which may own it) is dropped
+        ALTER SEQUENCE measurements_id_seq OWNED BY NONE;
+        ALTER SEQUENCE measurements_id_seq AS BIGINT;
+    END IF;
+
+    CREATE TABLE measurements (
+        id BIGINT NOT NULL DEFAULT nextval('measurements_id_seq'),
+        tml_record_id BIGINT NOT NULL,
+        measurement_date DATE NOT NULL,
+        thickness DOUBLE PRECISION,
+        temperature DOUBLE PRECISION,
+        corrosion_rate DOUBLE PRECISION,
+        CONSTRAINT measurements_pk PRIMARY KEY (id, measurement_date),
+        CONSTRAINT measurements_tml_fk FOREIGN KEY (tml_record_id) REFERENCES tmls (id)
+    ) PARTITION BY RANGE (measurement_date);
+
+    -- Catches readings outside the yearly partitions created here or by the application
+    CREATE TABLE measurements_default PARTITION OF measurements DEFAULT;
+
+    SELECT EXTRACT(YEAR FROM MIN(measurement_date)), EXTRACT(YEAR FROM MAX(measurement_date))
+    INTO first_year, last_year
+    FROM measurements_unpartitioned;
+    FOR partition_year IN LEAST(COALESCE(first_year, current_year), current_year)
+                       .. GREATEST(COALESCE(last_year, current_year), current_year) + 1 LOOP
+        PERFORM ensure_measurement_partition(partition_year);
+    END LOOP;
+
+    INSERT INTO measurements (id, tml_record_id, measurement_date, thickness, temperature, corrosion_rate)
+    SELECT id, tml_record_id, measurement_date, thickness, temperature, corrosion_rate
+    FROM measurements_unpartitioned;
+
+    DROP TABLE measurements_unpartitioned;
+    ALTER SEQUENCE measurements_id_seq OWNED BY measurements.id;
+    -- On an empty table the next id is 1, otherwise MAX(id) + 1
+    PERFORM setval('measurements_id_seq', COALESCE(MAX(id), 1), MAX(id) IS NOT NULL) FROM measurements;
+END;
+$$;
@@ -0,0 +1,21 @@
+-- Indexes on a partitioned table cascade to every partition, including future ones.
+
+-- Latest-per-TML lookups (DISTINCT ON ... ORDER BY measurement_date DESC, id DESC), the
+-- tracking self-join on (TML, date) and per-TML history scans; INCLUDE makes them index-only
+CREATE INDEX IF NOT EXISTS idx_measurements_tml_date
+    ON measurements (tml_record_id, measurement_date, id)
+    INCLUDE (thickness, temperature, corrosion_rate);
+
+-- Date filters: tracking start/end dates, per-date pages and the distinct date list
+CREATE INDEX IF NOT EXISTS idx_measurements_date
+    ON measurements (measurement_date, id)
+    INCLUDE (tml_record_id, corrosion_rate);
+
+CREATE INDEX IF NOT EXISTS idx_tmls_circuit_tml ON tmls (circuit_id, tml_id);
+
+CREATE INDEX IF NOT EXISTS idx_measurement_alerts_date ON measurement_alerts (measurement_date);
+CREATE INDEX IF NOT EXISTS idx_measurement_alerts_tml ON measurement_alerts (tml_record_id, measurement_date);
+
+CREATE INDEX IF NOT EXISTS idx_tml_assessments_remaining_life ON tml_assessments (remaining_life_years);
+
+ANALYZE measurements;
@@ -0,0 +1,5 @@
+-- Ids are reserved 50 at a time: Hibernate's pooled optimizer (allocationSize = 50) and the
+-- JDBC writers (IdAllocator) take the block ending at each nextval instead of one call per row.
+-- The next value lands 50 past the current one, so reserved blocks never reach existing ids.
+ALTER SEQUENCE tmls_id_seq INCREMENT BY 50;
+ALTER SEQUENCE measurements_id_seq INCREMENT BY 50;
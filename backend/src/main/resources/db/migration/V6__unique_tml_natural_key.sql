@@ -0,0 +1,12 @@
+-- One TML per (circuit, TML id). Batch upserts match TMLs by this key, and two batches creating
+-- the same TML at the same time must not both succeed. Replaces the plain index from V4.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM tmls GROUP BY circuit_id, tml_id HAVING COUNT(*) > 1) THEN
+        RAISE EXCEPTION 'tmls has duplicate (circuit_id, tml_id) pairs; merge them before applying V6';
+    END IF;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_tmls_circuit_tml ON tmls (circuit_id, tml_id);
+DROP INDEX IF EXISTS idx_tmls_circuit_tml;
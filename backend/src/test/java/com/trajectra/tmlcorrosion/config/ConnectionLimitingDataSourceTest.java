@@ -0,0 +1,93 @@
+package com.trajectra.tmlcorrosion.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionLimitingDataSourceTest {
+    
+    private final DataSource pool = mock(DataSource.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConnectionLimitingDataSource limiter;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        limiter = new ConnectionLimitingDataSource(pool, "primary", 2, 100, meterRegistry);
+    }
+    
+    @Test
+    void timesOutBeyondTheCap() throws SQLException {
+        limiter.getConnection();
+        limiter.getConnection();
+        
+        assertThatThrownBy(limiter::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(meterRegistry.get("tml.datasource.limiter.timeouts").tag("pool", "primary").counter().count()).isEqualTo(1);
+        verify(pool, times(2)).getConnection();
+    }
+    
+    @Test
+    void closingAConnectionReleasesItsPermit() throws Exception {
+        Connection first = limiter.getConnection();
+        limiter.getConnection();
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        first.close();
+        assertThat(waiter.get(1, TimeUnit.SECONDS)).isNotNull();
+        assertThat(available()).isZero();
+    }
+    
+    @Test
+    void closingTwiceReleasesOnlyOnePermit() throws SQLException {
+        Connection connection = limiter.getConnection();
+        
+        connection.close();
+        connection.close();
+        
+        assertThat(available()).isEqualTo(2);
+    }
+    
+    @Test
+    void failedCheckoutReturnsThePermit() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        
+        assertThatThrownBy(limiter::getConnection).hasMessage("pool exhausted");
+        assertThat(available()).isEqualTo(2);
+    }
+    
+    @Test
+    void delegatesOtherCallsToThePooledConnection() throws SQLException {
+        Connection pooled = mock(Connection.class);
+        when(pooled.getAutoCommit()).thenReturn(true);
+        when(pool.getConnection()).thenReturn(pooled);
+        
+        Connection connection = limiter.getConnection();
+        
+        assertThat(connection.getAutoCommit()).isTrue();
+        connection.close();
+        verify(pooled).close();
+    }
+    
+    private double available() {
+        return meterRegistry.get("tml.datasource.limiter.available").tag("pool", "primary").gauge().value();
+    }
+}
@@ -0,0 +1,134 @@
+package com.trajectra.tmlcorrosion.config;
+
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.MeasurementsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+    
+    private static final long MAX_LAG_MILLIS = 100;
+    
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final DataVersion dataVersion = new DataVersion();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReplicaRoutingDataSource(primary, replica, dataVersion, meterRegistry, MAX_LAG_MILLIS);
+        routing.afterPropertiesSet();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    
+    @Test
+    void routesReadOnlyTransactionsToAHealthyReplica() throws SQLException {
+        replicaLag(0.0);
+        routing.checkReplicaLag();
+        
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(meterRegistry.get("tml.datasource.replica.usable").gauge().value()).isEqualTo(1);
+    }
+    
+    @Test
+    void usesThePrimaryUntilTheFirstLagCheck() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+    
+    @Test
+    void bypassesALaggingReplica() throws SQLException {
+        replicaLag(MAX_LAG_MILLIS / 1000.0 + 1);
+        routing.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+    
+    @Test
+    void bypassesAReplicaWhoseLagCannotBeMeasured() throws SQLException {
+        replicaLag(0.0);
+        routing.checkReplicaLag();
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("replica down"));
+        routing.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("tml.datasource.replica.lag").gauge().value()).isNaN();
+    }
+    
+    @Test
+    void readsFollowingAMeasurementWriteStayOnThePrimary() throws Exception {
+        replicaLag(0.0);
+        routing.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        routing.onMeasurementsChanged(MeasurementsChangedEvent.of(1L, LocalDate.of(2024, 1, 1)));
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        
+        Thread.sleep(MAX_LAG_MILLIS + 50);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+    
+    @Test
+    void readsFollowingAVersionBumpStayOnThePrimary() throws SQLException {
+        replicaLag(0.0);
+        routing.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        dataVersion.bump();
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+    
+    @Test
+    void relabelEventsAlsoFenceReads() throws SQLException {
+        replicaLag(0.0);
+        routing.checkReplicaLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        routing.onMeasurementsChanged(new MeasurementsChangedEvent(Set.of(1L), Set.of()));
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+    
+    private void replicaLag(double seconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(resultSet.getDouble(1)).thenReturn(seconds);
+        when(resultSet.getObject(1)).thenReturn(seconds);
+    }
+}
@@ -0,0 +1,126 @@
+package com.trajectra.tmlcorrosion.controller;
+
+import com.trajectra.tmlcorrosion.entity.Classification;
+import com.trajectra.tmlcorrosion.entity.Measurement;
+import com.trajectra.tmlcorrosion.entity.Tml;
+import com.trajectra.tmlcorrosion.repository.ClassificationRepository;
+import com.trajectra.tmlcorrosion.repository.MeasurementRepository;
+import com.trajectra.tmlcorrosion.repository.TmlRepository;
+import com.trajectra.tmlcorrosion.service.CircuitRollupStore;
+import com.trajectra.tmlcorrosion.service.ClassificationIndex;
+import com.trajectra.tmlcorrosion.service.DataVersion;
+import com.trajectra.tmlcorrosion.service.LatestMeasurementStore;
+import com.trajectra.tmlcorrosion.service.SankeyUpdateBroadcaster;
+import com.trajectra.tmlcorrosion.service.SingleFlight;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@code GET /api/corrosion-data} cold (nothing loaded yet) against fleets of different
+ * sizes and reads the per-request statement count recorded through {@code QueryCountingDataSource}.
+ */
+@WebMvcTest(value = CorrosionDataController.class, properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=false",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@AutoConfigureDataJpa
+@AutoConfigureTestDatabase
+@Import({ LatestMeasurementStore.class, ClassificationIndex.class, VersionedResponseCache.class, DataVersion.class,
+    SingleFlight.class, SankeyStatementCountTest.MetricsConfig.class })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class SankeyStatementCountTest {
+    
+    // One classification scan and one latest-reading scan, whatever the fleet size
+    private static final long EXPECTED_STATEMENTS = 2;
+    
+    @TestConfiguration
+    static class MetricsConfig {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+    
+    @MockBean
+    private SankeyUpdateBroadcaster sankeyUpdateBroadcaster;
+    
+    @MockBean
+    private CircuitRollupStore circuitRollupStore;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private TmlRepository tmlRepository;
+    
+    @Autowired
+    private MeasurementRepository measurementRepository;
+    
+    @Autowired
+    private ClassificationRepository classificationRepository;
+    
+    @ParameterizedTest
+    @ValueSource(ints = { 10, 500 })
+    void statementCountDoesNotGrowWithTmls(int tmlCount) throws Exception {
+        classificationRepository.saveAll(List.of(
+            new Classification(null, ClassificationIndex.CORROSION_RATE, "Low", 0.0, 5.0),
+            new Classification(null, ClassificationIndex.CORROSION_RATE, "High", 5.0, null)));
+        seed(tmlCount);
+        
+        mockMvc.perform(get("/api/corrosion-data"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.target == 'Low')].value").exists());
+        
+        DistributionSummary statements = meterRegistry.get("tml.http.sql.statements")
+            .tag("uri", "/api/corrosion-data")
+            .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat((long) statements.totalAmount()).isEqualTo(EXPECTED_STATEMENTS);
+        
+        long rows = (long) meterRegistry.get("tml.http.rows.read").tag("uri", "/api/corrosion-data").summary().totalAmount();
+        // Two classification rows plus one latest reading per TML
+        assertThat(rows).isEqualTo(2 + tmlCount);
+    }
+    
+    private void seed(int tmlCount) {
+        LocalDate first = LocalDate.of(2020, 1, 1);
+        List<Measurement> measurements = new ArrayList<>();
+        for (int i = 0; i < tmlCount; i++) {
+            Tml tml = tmlRepository.save(new Tml(null, "C-" + (i % 7), "T-" + i, null));
+            for (int year = 0; year < 3; year++) {
+                measurements.add(new Measurement(null, tml, first.plusYears(year), 10.0 - year, 80.0, (double) (i % 10)));
+            }
+        }
+        measurementRepository.saveAll(measurements);
+    }
+}
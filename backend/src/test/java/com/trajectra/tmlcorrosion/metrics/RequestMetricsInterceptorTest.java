@@ -0,0 +1,91 @@
+package com.trajectra.tmlcorrosion.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMetricsInterceptorTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestMetricsInterceptor interceptor = new RequestMetricsInterceptor(meterRegistry, 100);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    
+    @Test
+    void recordsSynchronousRequestOnCompletion() {
+        MockHttpServletRequest request = request("/api/tmls");
+        
+        interceptor.preHandle(request, response, null);
+        statements(3);
+        interceptor.afterCompletion(request, response, null, null);
+        
+        assertThat(summary("/api/tmls").count()).isEqualTo(1);
+        assertThat(summary("/api/tmls").totalAmount()).isEqualTo(3);
+        assertThat(RequestQueryStats.end()).isNull();
+    }
+    
+    @Test
+    void countsAsyncWorkAndReleasesTheServletThread() throws Exception {
+        MockHttpServletRequest request = request("/api/measurements/export");
+        Callable<Void> task = () -> null;
+        
+        // First dispatch: the handler starts async processing
+        interceptor.preHandle(request, response, null);
+        statements(1);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertThat(RequestQueryStats.end()).isNull();
+        
+        // The streaming body runs on another thread
+        CompletableFuture.runAsync(() -> {
+            ServletWebRequest webRequest = new ServletWebRequest(request);
+            interceptor.preProcess(webRequest, task);
+            statements(4);
+            interceptor.postProcess(webRequest, task, null);
+            assertThat(RequestQueryStats.end()).isNull();
+        }).get();
+        assertThat(meterRegistry.find("tml.http.sql.statements").summary()).isNull();
+        
+        // Async dispatch back to the container completes the request
+        interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        
+        assertThat(summary("/api/measurements/export").count()).isEqualTo(1);
+        assertThat(summary("/api/measurements/export").totalAmount()).isEqualTo(5);
+        assertThat(RequestQueryStats.end()).isNull();
+    }
+    
+    @Test
+    void ignoresAsyncTasksOfUninstrumentedRequests() throws Exception {
+        ServletWebRequest webRequest = new ServletWebRequest(request("/actuator/health"));
+        Callable<Void> task = () -> null;
+        
+        CompletableFuture.runAsync(() -> {
+            interceptor.preProcess(webRequest, task);
+            assertThat(RequestQueryStats.end()).isNull();
+            interceptor.postProcess(webRequest, task, null);
+        }).get();
+    }
+    
+    private DistributionSummary summary(String uri) {
+        return meterRegistry.get("tml.http.sql.statements").tag("uri", uri).summary();
+    }
+    
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+    
+    private static void statements(int count) {
+        for (int i = 0; i < count; i++) {
+            RequestQueryStats.statementExecuted();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.BatchReport;
+import com.trajectra.tmlcorrosion.dto.MeasurementUpsert;
+import com.trajectra.tmlcorrosion.dto.TmlUpsert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:batchwrites;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=false",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ BatchWriteService.class, IdAllocator.class, DataVersion.class, BatchWriteServiceTest.CacheConfig.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class BatchWriteServiceTest {
+    
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 15);
+    private static final LocalDate FEB = LocalDate.of(2024, 2, 15);
+    
+    @TestConfiguration
+    static class CacheConfig {
+        
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+    
+    @Autowired
+    private BatchWriteService batchWriteService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEvents events;
+    
+    private long tml;
+    private long otherTml;
+    
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM measurements");
+        jdbcTemplate.update("DELETE FROM tmls");
+        BatchReport report = batchWriteService.upsertTmls(List.of(
+            new TmlUpsert(null, "C-1", "TML-1"),
+            new TmlUpsert(null, "C-1", "TML-2")));
+        tml = report.items().get(0).id();
+        otherTml = report.items().get(1).id();
+        events.clear();
+    }
+    
+    @Test
+    void classifiesMeasurementItems() {
+        long existing = insertMeasurement(tml, JAN, 10.0);
+        long otherExisting = insertMeasurement(tml, FEB, 9.5);
+        
+        BatchReport report = batchWriteService.upsertMeasurements(Arrays.asList(
+            new MeasurementUpsert(null, tml, JAN, 9.9, null, null),
+            new MeasurementUpsert(null, otherTml, JAN, 12.0, null, null),
+            new MeasurementUpsert(null, 999_999L, JAN, 1.0, null, null),
+            new MeasurementUpsert(888_888L, tml, LocalDate.of(2024, 3, 1), 1.0, null, null),
+            new MeasurementUpsert(null, otherTml, JAN, 11.0, null, null),
+            new MeasurementUpsert(existing, tml, FEB, 9.0, null, null),
+            new MeasurementUpsert(null, null, JAN, 1.0, null, null)));
+        
+        assertThat(report.items()).extracting(BatchReport.Item::status).containsExactly(
+            BatchReport.Status.UPDATED,
+            BatchReport.Status.CREATED,
+            BatchReport.Status.NOT_FOUND,
+            BatchReport.Status.NOT_FOUND,
+            BatchReport.Status.CONFLICT,
+            BatchReport.Status.CONFLICT,
+            BatchReport.Status.INVALID);
+        assertThat(report.items().get(0).id()).isEqualTo(existing);
+        assertThat(report.items().get(5).message()).contains(String.valueOf(otherExisting));
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.updated()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(5);
+        
+        assertThat(thicknessOn(tml, JAN)).isEqualTo(9.9);
+        assertThat(thicknessOn(otherTml, JAN)).isEqualTo(12.0);
+        assertThat(thicknessOn(tml, FEB)).isEqualTo(9.5);
+    }
+    
+    @Test
+    void movesAMeasurementByIdAndPublishesBothDates() {
+        long existing = insertMeasurement(tml, JAN, 10.0);
+        
+        BatchReport report = batchWriteService.upsertMeasurements(List.of(
+            new MeasurementUpsert(existing, otherTml, FEB, 9.0, null, null)));
+        
+        assertThat(report.items()).extracting(BatchReport.Item::status).containsExactly(BatchReport.Status.UPDATED);
+        assertThat(thicknessOn(otherTml, FEB)).isEqualTo(9.0);
+        assertThat(events.stream(MeasurementsChangedEvent.class)).singleElement().satisfies(event -> {
+            assertThat(event.tmlRecordIds()).isEqualTo(Set.of(tml, otherTml));
+            assertThat(event.measurementDates()).isEqualTo(Set.of(JAN, FEB));
+        });
+    }
+    
+    @Test
+    void publishesNothingWhenEveryItemIsRejected() {
+        BatchReport report = batchWriteService.upsertMeasurements(List.of(
+            new MeasurementUpsert(null, 999_999L, JAN, 1.0, null, null)));
+        
+        assertThat(report.rejected()).isEqualTo(1);
+        assertThat(events.stream(MeasurementsChangedEvent.class)).isEmpty();
+    }
+    
+    @Test
+    void classifiesTmlItems() {
+        BatchReport report = batchWriteService.upsertTmls(Arrays.asList(
+            new TmlUpsert(null, "C-1", "TML-1"),
+            new TmlUpsert(null, "C-2", "TML-1"),
+            new TmlUpsert(null, "C-2", "TML-1"),
+            new TmlUpsert(otherTml, "C-1", "TML-1"),
+            new TmlUpsert(777_777L, "C-3", "TML-9"),
+            new TmlUpsert(null, " ", "TML-1")));
+        
+        assertThat(report.items()).extracting(BatchReport.Item::status).containsExactly(
+            BatchReport.Status.UNCHANGED,
+            BatchReport.Status.CREATED,
+            BatchReport.Status.CONFLICT,
+            BatchReport.Status.CONFLICT,
+            BatchReport.Status.NOT_FOUND,
+            BatchReport.Status.INVALID);
+        assertThat(report.items().get(0).id()).isEqualTo(tml);
+        assertThat(report.unchanged()).isEqualTo(1);
+        assertThat(report.updated()).isZero();
+        // A no-op match by natural key changes no labels, so no change event
+        assertThat(events.stream(MeasurementsChangedEvent.class)).isEmpty();
+    }
+    
+    @Test
+    void resubmittingATmlByIdWithItsOwnKeyIsUnchanged() {
+        BatchReport report = batchWriteService.upsertTmls(List.of(new TmlUpsert(tml, "C-1", "TML-1")));
+        
+        assertThat(report.items()).extracting(BatchReport.Item::status).containsExactly(BatchReport.Status.UNCHANGED);
+        assertThat(events.stream(MeasurementsChangedEvent.class)).isEmpty();
+    }
+    
+    @Test
+    void waitsForAConcurrentWriterOnTheSameTml() throws Exception {
+        LocalDate march = LocalDate.of(2024, 3, 1);
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() ->
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // A competing batch holds the TML while it adds a reading on the same date
+                jdbcTemplate.queryForList("SELECT id FROM tmls WHERE id = ? FOR UPDATE", Long.class, tml);
+                jdbcTemplate.update("INSERT INTO measurements (id, tml_record_id, measurement_date, thickness) VALUES (?, ?, ?, ?)",
+                    -1L, tml, march, 8.0);
+                locked.countDown();
+                sleep(300);
+            }));
+        locked.await();
+        
+        BatchReport report = batchWriteService.upsertMeasurements(List.of(new MeasurementUpsert(null, tml, march, 7.5, null, null)));
+        writer.get();
+        
+        // The batch saw the other writer's committed row instead of adding a second reading on the same date
+        assertThat(report.items()).extracting(BatchReport.Item::status).containsExactly(BatchReport.Status.UPDATED);
+        assertThat(report.items().get(0).id()).isEqualTo(-1L);
+        assertThat(thicknessOn(tml, march)).isEqualTo(7.5);
+    }
+    
+    @Test
+    void relabellingATmlPublishesALabelOnlyEvent() {
+        BatchReport report = batchWriteService.upsertTmls(List.of(new TmlUpsert(tml, "C-9", "TML-1")));
+        
+        assertThat(report.updated()).isEqualTo(1);
+        assertThat(events.stream(MeasurementsChangedEvent.class)).singleElement().satisfies(event -> {
+            assertThat(event.tmlRecordIds()).containsExactly(tml);
+            assertThat(event.measurementDates()).isEmpty();
+        });
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private long insertMeasurement(long tmlRecordId, LocalDate date, double thickness) {
+        BatchReport report = batchWriteService.upsertMeasurements(List.of(
+            new MeasurementUpsert(null, tmlRecordId, date, thickness, null, null)));
+        events.clear();
+        return report.items().get(0).id();
+    }
+    
+    private Double thicknessOn(long tmlRecordId, LocalDate date) {
+        return jdbcTemplate.queryForObject("SELECT thickness FROM measurements WHERE tml_record_id = ? AND measurement_date = ?",
+            Double.class, tmlRecordId, date);
+    }
+}
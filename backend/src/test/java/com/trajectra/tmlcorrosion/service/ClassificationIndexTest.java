@@ -0,0 +1,88 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.entity.Classification;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassificationIndexTest {
+    
+    @Test
+    void bucketsDisjointRangesWithMinInclusiveAndMaxExclusive() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            range(3, "High", 10.0, null),
+            range(1, "Low", null, 5.0),
+            range(2, "Medium", 5.0, 10.0)));
+        
+        assertThat(ranges.size()).isEqualTo(3);
+        assertThat(ranges.label(-100.0)).isEqualTo("Low");
+        assertThat(ranges.label(4.999)).isEqualTo("Low");
+        assertThat(ranges.label(5.0)).isEqualTo("Medium");
+        assertThat(ranges.label(9.999)).isEqualTo("Medium");
+        assertThat(ranges.label(10.0)).isEqualTo("High");
+        assertThat(ranges.label(1e9)).isEqualTo("High");
+    }
+    
+    @Test
+    void returnsNoMatchInGaps() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            range(1, "Low", 0.0, 5.0),
+            range(2, "High", 10.0, 20.0)));
+        
+        assertThat(ranges.indexOf(-1.0)).isEqualTo(-1);
+        assertThat(ranges.indexOf(7.0)).isEqualTo(-1);
+        assertThat(ranges.indexOf(20.0)).isEqualTo(-1);
+        assertThat(ranges.label(7.0)).isNull();
+    }
+    
+    @Test
+    void dropsRowsWithoutAnyBound() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            range(1, "Anything", null, null),
+            range(2, "Low", 0.0, 5.0)));
+        
+        assertThat(ranges.size()).isEqualTo(1);
+        assertThat(ranges.label(-1.0)).isNull();
+        assertThat(ranges.label(1.0)).isEqualTo("Low");
+    }
+    
+    @Test
+    void overlappingRangesKeepFirstMatchInIdOrder() {
+        // The wide range comes first by id, so it wins wherever the two overlap
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            range(1, "Wide", 0.0, 100.0),
+            range(2, "Narrow", 10.0, 20.0),
+            range(3, "Above", 50.0, 200.0)));
+        
+        assertThat(ranges.label(15.0)).isEqualTo("Wide");
+        assertThat(ranges.label(60.0)).isEqualTo("Wide");
+        assertThat(ranges.label(150.0)).isEqualTo("Above");
+        assertThat(ranges.label(250.0)).isNull();
+    }
+    
+    @Test
+    void labelOrLastFallsIntoTheLastRange() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            range(2, "High", 10.0, 20.0),
+            range(1, "Low", 0.0, 10.0)));
+        
+        assertThat(ranges.labelOrLast(5.0)).isEqualTo("Low");
+        assertThat(ranges.labelOrLast(25.0)).isEqualTo("High");
+        assertThat(ranges.labelOrLast(-1.0)).isEqualTo("High");
+        assertThat(ranges.labelOrLast(null)).isEqualTo("High");
+        assertThat(ClassificationIndex.CompiledRanges.compile(List.of()).labelOrLast(null)).isNull();
+    }
+    
+    @Test
+    void emptyRangesMatchNothing() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of());
+        
+        assertThat(ranges.size()).isZero();
+        assertThat(ranges.indexOf(1.0)).isEqualTo(-1);
+    }
+    
+    private static Classification range(long id, String label, Double min, Double max) {
+        return new Classification(id, ClassificationIndex.CORROSION_RATE, label, min, max);
+    }
+}
@@ -0,0 +1,54 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.entity.Tml;
+import com.trajectra.tmlcorrosion.repository.TmlRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:ids;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=false",
+    "logging.level.org.hibernate.SQL=INFO",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdAllocator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdAllocatorTest {
+    
+    @Autowired
+    private IdAllocator idAllocator;
+    
+    @Autowired
+    private TmlRepository tmlRepository;
+    
+    @Test
+    void jdbcAndHibernateIdsNeverOverlap() {
+        List<Long> ids = new ArrayList<>(idAllocator.nextIds("tmls_id_seq", 3));
+        for (int i = 0; i < 60; i++) {
+            ids.add(tmlRepository.save(new Tml(null, "C-1", "TML-" + i, null)).getId());
+        }
+        ids.addAll(idAllocator.nextIds("tmls_id_seq", 120));
+        
+        Set<Long> unique = new HashSet<>(ids);
+        assertThat(unique).hasSize(ids.size());
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+}
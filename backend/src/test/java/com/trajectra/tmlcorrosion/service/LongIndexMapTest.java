@@ -0,0 +1,44 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIndexMapTest {
+    
+    @Test
+    void assignsDenseSlotsInFirstSeenOrder() {
+        LongIndexMap map = new LongIndexMap(4);
+        
+        assertThat(map.getOrAdd(42)).isZero();
+        assertThat(map.getOrAdd(-7)).isEqualTo(1);
+        assertThat(map.getOrAdd(42)).isZero();
+        assertThat(map.getOrAdd(0)).isEqualTo(2);
+        assertThat(map.size()).isEqualTo(3);
+    }
+    
+    @Test
+    void returnsMinusOneForUnknownKeys() {
+        LongIndexMap map = new LongIndexMap(4);
+        map.getOrAdd(1);
+        
+        assertThat(map.get(2)).isEqualTo(-1);
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo(-1);
+    }
+    
+    @Test
+    void keepsSlotsAcrossGrowth() {
+        LongIndexMap map = new LongIndexMap(1);
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            // Strided keys collide in the low bits without the hash mix
+            assertThat(map.getOrAdd(i * 1024L)).isEqualTo(i);
+        }
+        
+        assertThat(map.size()).isEqualTo(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(map.get(i * 1024L)).isEqualTo(i);
+        }
+        assertThat(map.get(count * 1024L)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.SankeyGraph;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SankeyGraphBuilderTest {
+    
+    @Test
+    void deduplicatesNodesAndCountsFlowPerLink() {
+        SankeyGraphBuilder builder = new SankeyGraphBuilder();
+        int circuitA = builder.node("C-A");
+        int low = builder.node("Low");
+        assertThat(builder.node("C-A")).isEqualTo(circuitA);
+        
+        builder.add(circuitA, low, 1, "C-A", "TML-1");
+        builder.add(circuitA, low, 2, "C-A", "TML-2");
+        SankeyGraph graph = builder.build();
+        
+        assertThat(graph.nodes()).containsExactly("C-A", "Low");
+        assertThat(graph.links()).hasSize(1);
+        SankeyGraph.Link link = graph.links().get(0);
+        assertThat(link.source()).isEqualTo(circuitA);
+        assertThat(link.target()).isEqualTo(low);
+        assertThat(link.value()).isEqualTo(2);
+        assertThat(link.members()).containsExactly(0, 1);
+    }
+    
+    @Test
+    void ordersMembersByCircuitThenNumericTmlId() {
+        SankeyGraphBuilder builder = new SankeyGraphBuilder();
+        int source = builder.node("source");
+        int target = builder.node("target");
+        builder.add(source, target, 10, "C-B", "TML-10");
+        builder.add(source, target, 11, "C-A", "TML-10");
+        builder.add(source, target, 12, "C-A", "TML-2");
+        builder.add(source, target, 13, "C-B", "TML-2");
+        SankeyGraph.Members members = builder.build().members();
+        
+        assertThat(members.circuits()).containsExactly("C-A", "C-B");
+        assertThat(members.tmlRecordId()).containsExactly(12, 11, 13, 10);
+        assertThat(members.tmlId()).containsExactly("TML-2", "TML-10", "TML-2", "TML-10");
+        assertThat(members.circuit()).containsExactly(0, 0, 1, 1);
+    }
+    
+    @Test
+    void listsEachTmlOnceAcrossLinks() {
+        SankeyGraphBuilder builder = new SankeyGraphBuilder();
+        int circuit = builder.node("C-A");
+        int low = builder.node("Low");
+        int high = builder.node("High");
+        // The same TML flows circuit -> category and category -> next category
+        builder.add(circuit, low, 7, "C-A", "TML-7");
+        builder.add(low, high, 7, "C-A", "TML-7");
+        builder.add(circuit, high, 3, "C-A", "TML-3");
+        SankeyGraph graph = builder.build();
+        
+        assertThat(graph.members().tmlRecordId()).containsExactly(3, 7);
+        assertThat(graph.links()).extracting(SankeyGraph.Link::value).containsExactly(1, 1, 1);
+        assertThat(graph.links().get(0).members()).containsExactly(1);
+        assertThat(graph.links().get(1).members()).containsExactly(1);
+        assertThat(graph.links().get(2).members()).containsExactly(0);
+    }
+    
+    @Test
+    void buildsAnEmptyGraph() {
+        SankeyGraph graph = new SankeyGraphBuilder().build();
+        
+        assertThat(graph.nodes()).isEmpty();
+        assertThat(graph.links()).isEmpty();
+        assertThat(graph.members().tmlRecordId()).isEmpty();
+    }
+}
@@ -0,0 +1,116 @@
+package com.trajectra.tmlcorrosion.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+    
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            
+            Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> "other"));
+            Future<String> second = executor.submit(() -> singleFlight.execute("key", () -> "other"));
+            waitForCoalesced(2);
+            release.countDown();
+            
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            assertThat(runs).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void nothingIsRetainedAfterCompletion() {
+        AtomicInteger runs = new AtomicInteger();
+        
+        singleFlight.execute("key", runs::incrementAndGet);
+        singleFlight.execute("key", runs::incrementAndGet);
+        
+        assertThat(runs).hasValue(2);
+        assertThat(meterRegistry.get("tml.singleflight.in.flight").gauge().value()).isZero();
+    }
+    
+    @Test
+    void failureReachesTheCallerAndIsNotRemembered() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        
+        assertThat(singleFlight.execute("key", () -> "recovered")).isEqualTo("recovered");
+    }
+    
+    @Test
+    void failureIsHandedToWaiters() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalArgumentException("bad input");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("key", () -> "other"), executor);
+            waitForCoalesced(1);
+            release.countDown();
+            
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void differentKeysDoNotCoalesce() {
+        assertThat(singleFlight.<String>execute("a", () -> "A")).isEqualTo("A");
+        assertThat(singleFlight.<String>execute("b", () -> "B")).isEqualTo("B");
+        assertThat(meterRegistry.get("tml.singleflight.calls").tag("role", "leader").counter().count()).isEqualTo(2);
+    }
+    
+    private void waitForCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("tml.singleflight.calls").tag("role", "coalesced").counter().count() < expected) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.trajectra.tmlcorrosion.service;
+
+import com.trajectra.tmlcorrosion.dto.TemporalTrackingRow;
+import com.trajectra.tmlcorrosion.entity.Classification;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemporalTrackingServiceTest {
+    
+    @Test
+    void endReadingsOutsideEveryRangeFallIntoTheLastCategory() {
+        ClassificationIndex.CompiledRanges ranges = ClassificationIndex.CompiledRanges.compile(List.of(
+            new Classification(1L, ClassificationIndex.CORROSION_RATE, "< 10 mpy", null, 10.0),
+            new Classification(2L, ClassificationIndex.CORROSION_RATE, "10-50 mpy", 10.0, 50.0),
+            new Classification(3L, ClassificationIndex.CORROSION_RATE, "> 50 mpy", 50.0, 100.0)));
+        
+        List<TemporalTrackingRow> rows = TemporalTrackingService.withEndCategory(List.of(
+            row(1, 5.0), row(2, 20.0), row(3, 150.0), row(4, null)), ranges);
+        
+        assertThat(rows).extracting(TemporalTrackingRow::endCategory)
+            .containsExactly("< 10 mpy", "10-50 mpy", "> 50 mpy", "> 50 mpy");
+    }
+    
+    private static TemporalTrackingRow row(long tmlRecordId, Double endRate) {
+        return new TemporalTrackingRow(tmlRecordId, "C-1", "T-" + tmlRecordId, 1.0, endRate, null, null, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.trajectra.tmlcorrosion.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeSeriesStoreTest {
+    
+    // Readings on days 10, 20, 20 and 30 (two on the same day)
+    private final TimeSeriesStore.Series series = series(10, 20, 20, 30);
+    
+    @Test
+    void lowerBoundFindsFirstReadingOnOrAfterDay() {
+        assertThat(series.lowerBound(Integer.MIN_VALUE)).isZero();
+        assertThat(series.lowerBound(10)).isZero();
+        assertThat(series.lowerBound(11)).isEqualTo(1);
+        assertThat(series.lowerBound(20)).isEqualTo(1);
+        assertThat(series.lowerBound(21)).isEqualTo(3);
+        assertThat(series.lowerBound(30)).isEqualTo(3);
+        assertThat(series.lowerBound(31)).isEqualTo(4);
+    }
+    
+    @Test
+    void latestBetweenTakesTheLastReadingOfADay() {
+        assertThat(series.latestBetween(Integer.MIN_VALUE, 20)).isEqualTo(2);
+        assertThat(series.latestBetween(Integer.MIN_VALUE, 29)).isEqualTo(2);
+        assertThat(series.latestBetween(Integer.MIN_VALUE, 30)).isEqualTo(3);
+        assertThat(series.latestBetween(Integer.MIN_VALUE, 1000)).isEqualTo(3);
+    }
+    
+    @Test
+    void latestBetweenHonoursTheFloor() {
+        assertThat(series.latestBetween(Integer.MIN_VALUE, 9)).isEqualTo(-1);
+        assertThat(series.latestBetween(10, 15)).isZero();
+        assertThat(series.latestBetween(11, 15)).isEqualTo(-1);
+        assertThat(series.latestBetween(20, 25)).isEqualTo(2);
+        assertThat(series.latestBetween(21, 29)).isEqualTo(-1);
+    }
+    
+    @Test
+    void emptySeriesHasNoReadings() {
+        TimeSeriesStore.Series empty = series();
+        
+        assertThat(empty.lowerBound(0)).isZero();
+        assertThat(empty.latestBetween(Integer.MIN_VALUE, Integer.MAX_VALUE - 1)).isEqualTo(-1);
+    }
+    
+    private static TimeSeriesStore.Series series(int... days) {
+        double[] values = new double[days.length];
+        return new TimeSeriesStore.Series(1L, "C-1", "TML-1", days, values, values.clone(), values.clone());
+    }
+}
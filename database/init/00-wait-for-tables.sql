@@ -1,5 +1,5 @@
 -- This script ensures the database is created
--- The tables will be created by the Spring Boot application on first run
+-- The tables are created by the Flyway migrations when the Spring Boot application starts
 -- The data loading script (01-dummy-data.sql) will need to be run manually after tables are created
 
-SELECT 'Database initialized. Tables will be created by Spring Boot application.' as message;
\ No newline at end of file
+SELECT 'Database initialized. Tables will be created by the Spring Boot application (Flyway).' as message;
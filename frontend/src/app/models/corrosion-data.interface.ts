@@ -25,3 +25,9 @@ export interface CorrosionData {
   links: SankeyLink[];
 }
 
+// Graph as returned by /temporal/sankey: TMLs live once in `members`, links hold sorted member indexes
+export interface SankeyGraphResponse {
+  nodes: string[];
+  links: { source: number; target: number; value: number; members: number[] }[];
+  members: { circuits: string[]; circuit: number[]; tmlRecordId: number[]; tmlId: string[] };
+}
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { BehaviorSubject, Observable, firstValueFrom } from 'rxjs';
-import { CorrosionData, TmlData } from '../models/corrosion-data.interface';
+import { CorrosionData, SankeyGraphResponse, TmlData } from '../models/corrosion-data.interface';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../environments/environment';
 
@@ -80,84 +80,13 @@ export class CorrosionDataService {
     this.dataSubject.next(sankeyData);
   }
 
-  private generateSankeyFromTemporalData(temporalData: any[], startDate: string, endDate: string, maxCorrosionRate: number): void {
-    console.log('Generating Sankey from temporal data:', temporalData);
-    
-    // Group TMLs by their end category first
-    const categoryGroups: { [key: string]: any[] } = {};
-    
-    temporalData.forEach(record => {
-      const category = record.endCategory || record.endcategory; // Handle different case formats
-      if (!categoryGroups[category]) {
-        categoryGroups[category] = [];
-      }
-      categoryGroups[category].push(record);
-    });
-
-    // Only create nodes and links for categories that have data
-    const nodes = [
-      { name: `TMLs with <= ${maxCorrosionRate} mpy corrosion rate as on ${startDate}` }
-    ];
-
-    const links: any[] = [];
-    const availableCategories = ["< 10 mpy", "10-20 mpy", "20-30 mpy", "30-50 mpy", "> 50 mpy"];
-    
-    let targetIndex = 1;
-    
-    // Only add nodes and links for categories that have data
-    availableCategories.forEach(category => {
-      const records = categoryGroups[category];
-      if (records && records.length > 0) {
-        // Add node for this category
-        nodes.push({ name: category });
-        
-        // Create TML data for this category
-        const tmlData: { [key: string]: string[] } = {};
-        records.forEach(record => {
-          const circuitId = record.circuitId || record.circuitid;
-          const tmlId = record.tmlId || record.tmlid;
-          
-          if (!tmlData[circuitId]) {
-            tmlData[circuitId] = [];
-          }
-          tmlData[circuitId].push(tmlId);
-        });
-
-        // Sort TML IDs within each circuit
-        Object.keys(tmlData).forEach(circuit => {
-          tmlData[circuit].sort((a, b) => {
-            // Extract numeric part from TML ID for proper sorting
-            const numA = parseInt(a.replace(/\D/g, ''), 10);
-            const numB = parseInt(b.replace(/\D/g, ''), 10);
-            return numA - numB;
-          });
-        });
-
-        links.push({
-          source: 0,
-          target: targetIndex,
-          value: records.length,
-          tmls: tmlData,
-          tmlData: records  // Add the raw temporal data for expansion
-        });
-        
-        targetIndex++;
-      }
-    });
-
-    const sankeyData = { nodes, links };
-    console.log('Generated temporal Sankey data with only populated categories:', sankeyData);
-    this.dataSubject.next(sankeyData);
-  }
-
   async filterAndGenerateSankeyData(startDate: string, endDate: string, maxCorrosionRate: number): Promise<void> {
     try {
       console.log('Generating temporal tracking data with:', { startDate, endDate, maxCorrosionRate });
-      const temporalData = await this.getTemporalTracking(startDate, endDate, maxCorrosionRate);
-      console.log('Received temporal tracking data:', temporalData);
+      const graph = await this.getTemporalSankey(startDate, endDate, maxCorrosionRate);
       
-      if (temporalData && temporalData.length > 0) {
-        this.generateSankeyFromTemporalData(temporalData, startDate, endDate, maxCorrosionRate);
+      if (graph && graph.links.length > 0) {
+        this.dataSubject.next(this.fromSankeyGraph(graph));
       } else {
         console.log('No temporal tracking data found');
         // Generate empty Sankey data
@@ -227,6 +156,36 @@ export class CorrosionDataService {
     }
   }
 
+  async getTemporalSankey(startDate: string, endDate: string, maxCorrosionRate: number): Promise<SankeyGraphResponse | null> {
+    try {
+      const params = {
+        startDate,
+        endDate,
+        maxCorrosionRate: maxCorrosionRate.toString()
+      };
+      return await firstValueFrom(this.http.get<SankeyGraphResponse>(`${environment.apiUrl}/temporal/sankey`, { params }));
+    } catch (error) {
+      console.error('Error loading temporal Sankey graph:', error);
+      return null;
+    }
+  }
+
+  // Expands member indexes into the per-circuit TML lists (already sorted server-side) the chart and modal use
+  private fromSankeyGraph(graph: SankeyGraphResponse): CorrosionData {
+    const { circuits, circuit, tmlId } = graph.members;
+    const links = graph.links.map(link => {
+      const tmls: TmlData = {};
+      const tmlData: { circuitId: string; tmlId: string }[] = [];
+      for (const member of link.members) {
+        const circuitId = circuits[circuit[member]];
+        (tmls[circuitId] ??= []).push(tmlId[member]);
+        tmlData.push({ circuitId, tmlId: tmlId[member] });
+      }
+      return { source: link.source, target: link.target, value: link.value, tmls, tmlData };
+    });
+    return { nodes: graph.nodes.map(name => ({ name })), links };
+  }
+
   async getTemporalTracking(startDate: string, endDate: string, maxCorrosionRate: number): Promise<any[]> {
     try {
       const params = {
@@ -0,0 +1,52 @@
+-- Compare the exact-date self-join behind /api/temporal/tracking with the
+-- as-of (nearest prior reading) LATERAL lookup behind ?asOf=true.
+--
+-- Usage:
+--   psql -d tml_corrosion -v start_date=2024-01-01 -v end_date=2025-01-01 \
+--        -v max_rate=50 -v tolerance_days=30 -f scripts/benchmark_asof_tracking.sql
+--
+-- The as-of lookup relies on an index over (tml_record_id, measurement_date);
+-- create it first if the schema does not have one yet.
+
+\timing on
+
+CREATE INDEX IF NOT EXISTS idx_measurements_tml_date
+    ON measurements (tml_record_id, measurement_date);
+ANALYZE measurements;
+
+-- Exact-date self-join (current default)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT start.tml_record_id, tml.circuit_id, tml.tml_id,
+       start.corrosion_rate, finish.corrosion_rate
+FROM measurements start
+JOIN measurements finish ON start.tml_record_id = finish.tml_record_id
+JOIN tmls tml ON start.tml_record_id = tml.id
+WHERE start.measurement_date = :'start_date'
+AND finish.measurement_date = :'end_date'
+AND start.corrosion_rate <= :max_rate;
+
+-- As-of lookup with a tolerance window
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT tml.id, tml.circuit_id, tml.tml_id,
+       start.corrosion_rate, finish.corrosion_rate
+FROM tmls tml
+JOIN LATERAL (
+    SELECT m.corrosion_rate, m.measurement_date
+    FROM measurements m
+    WHERE m.tml_record_id = tml.id
+    AND m.measurement_date <= :'start_date'
+    AND m.measurement_date >= DATE :'start_date' - :tolerance_days
+    ORDER BY m.measurement_date DESC
+    LIMIT 1
+) start ON true
+JOIN LATERAL (
+    SELECT m.corrosion_rate, m.measurement_date
+    FROM measurements m
+    WHERE m.tml_record_id = tml.id
+    AND m.measurement_date <= :'end_date'
+    AND m.measurement_date >= DATE :'end_date' - :tolerance_days
+    AND m.measurement_date > start.measurement_date
+    ORDER BY m.measurement_date DESC
+    LIMIT 1
+) finish ON true
+WHERE start.corrosion_rate <= :max_rate;
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Compare platform-thread and virtual-thread request execution under a mixed load:
+# slow analytic exports run alongside cheap per-TML lookups, and the lookups' throughput
+# and p99 latency are reported for each mode.
+#
+# Usage (Java 21 on PATH, PostgreSQL loaded with data, hey installed):
+#   (cd backend && mvn -B package -DskipTests)
+#   scripts/compare_thread_modes.sh [concurrency] [duration]
+#
+# Environment:
+#   JAR             application jar (default backend/target/*.jar)
+#   PORT            port for the application under test (default 8080)
+#   SLOW_CLIENTS    concurrent export downloads kept running (default 50)
+#   TML_ID          TML record id used for the cheap requests (default 1)
+#   EXTRA_PROFILES  profiles added to both runs, e.g. prod (default none)
+
+set -euo pipefail
+
+CONCURRENCY=${1:-1000}
+DURATION=${2:-60s}
+JAR=${JAR:-$(ls backend/target/*.jar | grep -v original | head -1)}
+PORT=${PORT:-8080}
+SLOW_CLIENTS=${SLOW_CLIENTS:-50}
+TML_ID=${TML_ID:-1}
+EXTRA_PROFILES=${EXTRA_PROFILES:-}
+BASE_URL="http://localhost:${PORT}"
+
+command -v hey >/dev/null || { echo "hey is required (https://github.com/rakyll/hey)" >&2; exit 1; }
+java -version 2>&1 | grep -Eq 'version "(2[1-9]|[3-9][0-9])' || { echo "Java 21+ is required" >&2; exit 1; }
+
+APP_PID=""
+cleanup() {
+    if [ -n "$APP_PID" ]; then
+        kill "$APP_PID" 2>/dev/null || true
+        wait "$APP_PID" 2>/dev/null || true
+    fi
+}
+trap cleanup EXIT
+
+run_mode() {
+    local mode=$1 profiles=$2
+    local log="/tmp/tml-${mode}.log" out="/tmp/tml-${mode}-hey.txt"
+
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profiles" >"$log" 2>&1 &
+    APP_PID=$!
+    for _ in $(seq 1 120); do
+        curl -fs "${BASE_URL}/actuator/health" >/dev/null && break
+        sleep 1
+    done
+    curl -fs "${BASE_URL}/actuator/health" >/dev/null || { echo "$mode: application did not start, see $log" >&2; exit 1; }
+
+    # Warm up caches and the JIT before measuring
+    hey -z 10s -c 50 "${BASE_URL}/api/measurements/tml/${TML_ID}" >/dev/null
+
+    hey -z "$DURATION" -c "$SLOW_CLIENTS" "${BASE_URL}/api/measurements/export?format=csv" >/dev/null &
+    local slow_pid=$!
+    hey -z "$DURATION" -c "$CONCURRENCY" "${BASE_URL}/api/measurements/tml/${TML_ID}" >"$out"
+    wait "$slow_pid" || true
+
+    local rps p99 errors
+    rps=$(awk '/Requests\/sec/ {print $2}' "$out")
+    p99=$(awk '/ 99% in / {print $3 * 1000}' "$out")
+    errors=$(awk '/Error distribution/ {found=1; next} found && /\[/ {sum += substr($1, 2)} END {print sum + 0}' "$out")
+    printf '%-10s %12s %12s %10s\n' "$mode" "$rps" "$p99" "$errors"
+
+    cleanup
+    APP_PID=""
+}
+
+join_profiles() {
+    local profiles=$1
+    [ -n "$EXTRA_PROFILES" ] && profiles="${EXTRA_PROFILES}${profiles:+,$profiles}"
+    echo "$profiles"
+}
+
+echo "Cheap requests at concurrency ${CONCURRENCY} for ${DURATION} with ${SLOW_CLIENTS} concurrent exports"
+printf '%-10s %12s %12s %10s\n' "mode" "req/s" "p99 (ms)" "errors"
+run_mode platform "$(join_profiles "")"
+run_mode virtual "$(join_profiles virtual-threads)"
+echo "Full hey reports: /tmp/tml-platform-hey.txt, /tmp/tml-virtual-hey.txt"